@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import org.apache.commons.lang3.*;
+
+/**
+ * HtmlReportWriter is a ReportWriter that renders the investigation report as
+ * a standalone HTML document.  Each status group is rendered as a section and
+ * each investigation as a table of its details followed by its witnesses and
+ * statements.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class HtmlReportWriter extends ReportWriter {
+
+	/**
+	 * Construct a new HtmlReportWriter instance writing to the provided writer.
+	 * @param out The writer the report is written to.
+	 */
+	public HtmlReportWriter(Writer out) {
+		super(out);
+	}
+
+	/**
+	 * Construct a new HtmlReportWriter instance writing to the provided writer.
+	 * @param out The writer the report is written to.
+	 * @param spoolDirectory The directory the status group spool files are
+	 * 		created in or null for the default temporary directory.
+	 */
+	public HtmlReportWriter(Writer out, File spoolDirectory) {
+		super(out, spoolDirectory);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeHeader(java.lang.String, int)
+	 */
+	@Override
+	protected void writeHeader(String name, int count) throws IOException {
+		out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>Investigations Report: ");
+		escape(name);
+		out.write("</title>\n<style>\n");
+		out.write("body { font-family: sans-serif; }\n");
+		out.write("table { border-collapse: collapse; margin-bottom: 1em; }\n");
+		out.write("th, td { border: 1px solid #999; padding: 2px 6px; text-align: left; vertical-align: top; }\n");
+		out.write(".statement { white-space: pre-wrap; }\n");
+		out.write("</style>\n</head>\n<body>\n<h1>Investigations Report: ");
+		escape(name);
+		out.write("</h1>\n");
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeGroupStart(java.lang.String)
+	 */
+	@Override
+	protected void writeGroupStart(String status) throws IOException {
+		out.write("<div class=\"group\">\n<h2>Status: ");
+		escape(status);
+		out.write("</h2>\n");
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeInvestigation(com.darkside.judge.Investigation)
+	 */
+	@Override
+	protected void writeInvestigation(Investigation investigation) throws IOException {
+		out.write("<div class=\"investigation\">\n<h3>Investigation ");
+		write(investigation.getId());
+		out.write("</h3>\n<table>\n");
+		writeRow("Incident Date", investigation.getIncidentDate());
+		writeRow("Entered Date", investigation.getEnteredDate());
+		writeRow("Entered By", investigation.getEnteredBy() + " (" + investigation.getEnteredDciNo() + ")");
+		writeRow("Subject", investigation.getSubject() + " (" + investigation.getSubjectDciNo() + ")");
+		writeRow("Subject Role", investigation.getSubjectRole());
+		writeRow("Sanctioning No", investigation.getSanctioningNo());
+		writeRow("Event", investigation.getEventType() + " (" + investigation.getEventRel() + ")");
+		writeRow("Location", investigation.getCity() + ", " + investigation.getCountry());
+		writeRow("Infractions", StringUtils.join(investigation.getInfractions(), "; "));
+		writeRow("Status", investigation.getStatus());
+		writeRow("Resolution", investigation.getResolution());
+		out.write("</table>\n");
+
+		if (!investigation.getWitnesses().isEmpty()) {
+			out.write("<table class=\"witnesses\">\n<tr><th>Witness</th><th>DCI No</th><th>Role</th></tr>\n");
+			for (Witness witness : investigation.getWitnesses()) {
+				out.write("<tr><td>");
+				escape(witness.getName());
+				out.write("</td><td>");
+				write(witness.getDciNo());
+				out.write("</td><td>");
+				escape(witness.getRole());
+				out.write("</td></tr>\n");
+			}
+			out.write("</table>\n");
+		}
+
+		if (!investigation.getStatements().isEmpty()) {
+			out.write("<table class=\"statements\">\n<tr><th>Witness</th><th>Entered</th><th>Statement</th></tr>\n");
+			for (Statement statement : investigation.getStatements()) {
+				out.write("<tr><td>");
+				escape(statement.getWitnessName());
+				out.write("</td><td>");
+				write(statement.getEnteredDate());
+				out.write("<br>");
+				escape(statement.getEnteredBy());
+				out.write("</td><td class=\"statement\">");
+				escape(statement.getStatement());
+				out.write("</td></tr>\n");
+			}
+			out.write("</table>\n");
+		}
+		out.write("</div>\n");
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeGroupEnd(java.lang.String)
+	 */
+	@Override
+	protected void writeGroupEnd(String status) throws IOException {
+		out.write("</div>\n");
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeSummary(com.darkside.judge.ReportSummary)
+	 */
+	@Override
+	protected void writeSummary(ReportSummary summary) throws IOException {
+		out.write("<div class=\"summary\">\n<h2>Summary</h2>\n<table>\n");
+		writeRow("Investigations", summary.getInvestigations());
+		writeRow("Witnesses", summary.getWitnesses());
+		writeRow("Statements", summary.getStatements());
+		writeRow("Earliest Entered", summary.getEarliestEnteredDate());
+		writeRow("Latest Entered", summary.getLatestEnteredDate());
+		out.write("</table>\n<table>\n<tr><th>Status</th><th>Investigations</th></tr>\n");
+		for (String status : summary.getStatuses()) {
+			writeRow(status, summary.getStatusCount(status));
+		}
+		out.write("</table>\n</div>\n");
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeFooter()
+	 */
+	@Override
+	protected void writeFooter() throws IOException {
+		out.write("</body>\n</html>\n");
+	}
+
+	/*
+	 * writeRow writes a two column table row with the provided label and value.
+	 */
+	private void writeRow(String label, Object value) throws IOException {
+		out.write("<tr><th>");
+		escape(label);
+		out.write("</th><td>");
+		escape(value != null ? value.toString() : null);
+		out.write("</td></tr>\n");
+	}
+
+	/*
+	 * escape writes the provided text to the output escaping the HTML special
+	 * characters without creating an intermediate escaped string.
+	 */
+	private void escape(String text) throws IOException {
+		if (text == null) {
+			return;
+		}
+		int start = 0;
+		for (int i = 0; i < text.length(); ++i) {
+			String entity;
+			switch (text.charAt(i)) {
+			case '<': entity = "&lt;"; break;
+			case '>': entity = "&gt;"; break;
+			case '&': entity = "&amp;"; break;
+			case '"': entity = "&quot;"; break;
+			case '\'': entity = "&#39;"; break;
+			default: continue;
+			}
+			out.write(text, start, i - start);
+			out.write(entity);
+			start = i + 1;
+		}
+		out.write(text, start, text.length() - start);
+	}
+
+}
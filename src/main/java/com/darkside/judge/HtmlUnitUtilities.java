@@ -48,16 +48,25 @@ public final class HtmlUnitUtilities {
 	 * that anchor instance and returns the resulting HtmlPage instance.
 	 * @param page The current HtmlPage instance.
 	 * @param anchorText The anchor text content for which to search.
-	 * @return The resultant HtmlPage instance.
-	 * @throws IOException
+	 * @return The resultant HtmlPage instance or null if the anchor was not
+	 * 		found.
+	 * @throws IOException Failure exception when making the web-request or
+	 * 		when the anchor does not result in an HTML page (such as a server
+	 * 		error page).
 	 */
 	public static HtmlPage findAndClickAnchor(HtmlPage page, String anchorText) throws IOException {
+		HtmlAnchor anchor;
 		try {
-			HtmlAnchor anchor = page.getHtmlElementById(anchorText);
-    		return anchor.click();
+			anchor = page.getHtmlElementById(anchorText);
 		} catch (ElementNotFoundException enfe) {
 			return null;
 		}
+		Page result = anchor.click();
+		if (!(result instanceof HtmlPage)) {
+			WebResponse response = result.getWebResponse();
+			throw new IOException("Anchor " + anchorText + " resulted in a non HTML page: " + response.getStatusCode() + " " + response.getStatusMessage());
+		}
+		return (HtmlPage) result;
 	}
 	
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import org.joda.time.*;
+
+/**
+ * InvestigationCodec is a class that converts an Investigation instance to and
+ * from the compact binary form kept in the InvestigationStore segment files.
+ * The witness and statement cross references are stored as list indices and
+ * restored when the investigation is decoded.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+final class InvestigationCodec {
+
+	/* The encoded form version */
+	private static final int FORMAT_VERSION = 1;
+	/* The string encoding */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private InvestigationCodec() {
+	}
+
+	/**
+	 * Encode the provided investigation.
+	 * @param investigation The Investigation instance to encode.
+	 * @return The encoded investigation.
+	 */
+	public static byte[] encode(Investigation investigation) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+			DataOutputStream out = new DataOutputStream(bytes);
+
+			out.writeByte(FORMAT_VERSION);
+			out.writeLong(investigation.getId());
+			writeDate(out, investigation.getIncidentDate());
+			writeDate(out, investigation.getEnteredDate());
+			writeString(out, investigation.getSanctioningNo());
+			writeString(out, investigation.getEnteredBy());
+			out.writeLong(investigation.getEnteredDciNo());
+			writeString(out, investigation.getSubject());
+			out.writeLong(investigation.getSubjectDciNo());
+			writeString(out, investigation.getSubjectRole());
+			writeString(out, investigation.getEventRel());
+			writeString(out, investigation.getEventType());
+			writeString(out, investigation.getCity());
+			writeString(out, investigation.getCountry());
+			writeString(out, investigation.getStatus());
+			writeString(out, investigation.getResolution());
+
+			out.writeInt(investigation.getInfractions().size());
+			for (String infraction : investigation.getInfractions()) {
+				writeString(out, infraction);
+			}
+
+			List<Witness> witnesses = investigation.getWitnesses();
+			out.writeInt(witnesses.size());
+			for (Witness witness : witnesses) {
+				writeString(out, witness.getName());
+				out.writeLong(witness.getDciNo());
+				writeString(out, witness.getRole());
+			}
+
+			out.writeInt(investigation.getStatements().size());
+			for (Statement statement : investigation.getStatements()) {
+				writeString(out, statement.getWitnessName());
+				out.writeLong(statement.getWitnessDciNo());
+				writeDate(out, statement.getEnteredDate());
+				writeString(out, statement.getEnteredBy());
+				writeString(out, statement.getStatement());
+				out.writeInt(indexOf(witnesses, statement.getWitness()));
+			}
+
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			// A ByteArrayOutputStream does not throw IOException.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Decode an investigation.
+	 * @param data The encoded investigation.
+	 * @return The decoded Investigation instance.
+	 * @throws IOException When the data is not a valid encoded investigation.
+	 */
+	public static Investigation decode(byte[] data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+		int version = in.readUnsignedByte();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported investigation format version " + version);
+		}
+
+		Investigation investigation = new Investigation();
+		investigation.setId(in.readLong());
+		investigation.setIncidentDate(readDate(in));
+		investigation.setEnteredDate(readDate(in));
+		investigation.setSanctioningNo(readString(in));
+		investigation.setEnteredBy(readString(in));
+		investigation.setEnteredDciNo(in.readLong());
+		investigation.setSubject(readString(in));
+		investigation.setSubjectDciNo(in.readLong());
+		investigation.setSubjectRole(readString(in));
+		investigation.setEventRel(readString(in));
+		investigation.setEventType(readString(in));
+		investigation.setCity(readString(in));
+		investigation.setCountry(readString(in));
+		investigation.setStatus(readString(in));
+		investigation.setResolution(readString(in));
+
+		for (int i = in.readInt(); i > 0; --i) {
+			investigation.getInfractions().add(readString(in));
+		}
+
+		List<Witness> witnesses = investigation.getWitnesses();
+		for (int i = in.readInt(); i > 0; --i) {
+			Witness witness = new Witness();
+			witness.setName(readString(in));
+			witness.setDciNo(in.readLong());
+			witness.setRole(readString(in));
+			witnesses.add(witness);
+		}
+
+		for (int i = in.readInt(); i > 0; --i) {
+			Statement statement = new Statement();
+			statement.setWitnessName(readString(in));
+			statement.setWitnessDciNo(in.readLong());
+			statement.setEnteredDate(readDate(in));
+			statement.setEnteredBy(readString(in));
+			statement.setStatement(readString(in));
+			int witness = in.readInt();
+			if (witness >= 0 && witness < witnesses.size()) {
+				Witness w = witnesses.get(witness);
+				statement.setWitness(w);
+				w.setStatement(statement);
+			}
+			investigation.getStatements().add(statement);
+		}
+
+		return investigation;
+	}
+
+	/*
+	 * indexOf finds the witness by identity; Witness equality compares the
+	 * witness statement, which in turn compares its witness, and equal
+	 * witnesses must keep their own statements.
+	 */
+	private static int indexOf(List<Witness> witnesses, Witness witness) {
+		for (int i = 0; witness != null && i < witnesses.size(); ++i) {
+			if (witnesses.get(i) == witness) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * writeString writes a length prefixed UTF-8 string; a null string is
+	 * written with a length of -1.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	/*
+	 * writeDate writes a date as its ISO-8601 string.
+	 */
+	private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+		writeString(out, date != null ? date.toString() : null);
+	}
+
+	private static LocalDate readDate(DataInputStream in) throws IOException {
+		String date = readString(in);
+		return date != null ? LocalDate.parse(date) : null;
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+/**
+ * InvestigationError is a class that records an investigation that could not
+ * be loaded from the Judge Center: where the investigation was found in the
+ * investigation list, how many attempts were made to load it and the cause
+ * of the most recent failure.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.Data
+public class InvestigationError {
+	
+	/** The investigation identifier or -1 if it could not be read. */
+	private final long id;
+	/** The investigation list page number the investigation was found on. */
+	private final int page;
+	/** The investigation list table row the investigation was found in or -1 if unknown; with an id of -1 the whole page could not be loaded. */
+	private final int row;
+	/** The number of failed attempts to load the investigation. */
+	private int attempts;
+	/** The cause of the most recent failure. */
+	private Throwable cause;
+	
+	/**
+	 * Record a failed attempt to load the investigation.
+	 * @param cause The cause of the failure.
+	 */
+	public void failed(Throwable cause) {
+		++attempts;
+		this.cause = cause;
+	}
+	
+	/**
+	 * Check whether this error is for a whole list page whose investigations
+	 * are not known.
+	 * @return True if neither the investigation nor its row is known.
+	 */
+	public boolean isPageError() {
+		return id < 0 && row < 0;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return id + " (page " + page + ", row " + row + ", " + attempts + " attempts): " + cause;
+	}
+	
+}
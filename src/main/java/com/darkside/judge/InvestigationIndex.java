@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * InvestigationIndex is the memory-mapped investigation id to record location
+ * index of an InvestigationStore.  The index is an open addressing hash table
+ * with linear probing kept in a single file, so a lookup touches a single
+ * mapped slot in the common case and costs no reads through the file system.
+ * <p>
+ * Each slot holds the investigation id and version and the segment number,
+ * offset and length of the current record; a segment number of zero marks an
+ * empty slot.  The table doubles in size when it becomes half full; the file
+ * is grown in place because a file that is still mapped can be neither
+ * replaced nor truncated on Windows, and Java offers no way to unmap it.  The
+ * header records whether the index was closed cleanly; an index that was not
+ * is rebuilt from the segment files by the store.
+ * <p>
+ * The index is not thread safe; the store guards it with its lock.  Lookups
+ * only use absolute buffer reads, so concurrent lookups under a shared lock
+ * are safe.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+final class InvestigationIndex implements Closeable {
+
+	/* The index file identifier ("JCIX") */
+	private static final int MAGIC = 0x4A434958;
+	/* The index file format version */
+	private static final int FORMAT_VERSION = 1;
+	/* The header layout */
+	private static final int HEADER_SIZE = 32;
+	private static final int HEADER_MAGIC = 0;
+	private static final int HEADER_VERSION = 4;
+	private static final int HEADER_CAPACITY = 8;
+	private static final int HEADER_SIZE_FIELD = 12;
+	private static final int HEADER_CLEAN = 16;
+	/* The slot layout */
+	private static final int SLOT_SIZE = 32;
+	private static final int SLOT_ID = 0;
+	private static final int SLOT_VERSION = 8;
+	private static final int SLOT_OFFSET = 16;
+	private static final int SLOT_SEGMENT = 24;
+	private static final int SLOT_LENGTH = 28;
+
+	/* The index file */
+	private final File file;
+	/* The mapped index file */
+	private MappedByteBuffer buffer;
+	/* The number of slots; always a power of two */
+	private int capacity;
+	/* The number of used slots */
+	private int size;
+	/* True when the index was closed cleanly when it was opened */
+	private final boolean clean;
+
+	/**
+	 * Open the index file, creating it if it does not exist or is not a valid
+	 * index file.
+	 * @param file The index file.
+	 * @param initialCapacity The number of slots of a new index.
+	 * @throws IOException
+	 */
+	public InvestigationIndex(File file, int initialCapacity) throws IOException {
+		this.file = file;
+
+		// The header is checked before mapping; an invalid file is recreated and cannot be truncated once mapped.
+		if (isValid(file)) {
+			buffer = map(file, file.length());
+			capacity = buffer.getInt(HEADER_CAPACITY);
+			size = buffer.getInt(HEADER_SIZE_FIELD);
+			clean = buffer.getInt(HEADER_CLEAN) != 0;
+		} else {
+			buffer = create(file, Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1));
+			capacity = buffer.getInt(HEADER_CAPACITY);
+			size = 0;
+			clean = false;
+		}
+	}
+
+	/**
+	 * Check whether the index was closed cleanly when it was opened.
+	 * @return True if the index content can be trusted.
+	 */
+	public boolean isClean() {
+		return clean;
+	}
+
+	/**
+	 * Mark the index as being closed cleanly or as being in use.
+	 * @param clean True when the index is about to be closed.
+	 */
+	public void setClean(boolean clean) {
+		buffer.putInt(HEADER_CLEAN, clean ? 1 : 0);
+		buffer.force();
+	}
+
+	/**
+	 * Get the number of investigations in the index.
+	 * @return The number of investigations.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of slots in the index.
+	 * @return The number of slots.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Find the slot of the specified investigation.
+	 * @param id The investigation identifier.
+	 * @return The slot or -1 if the investigation is not in the index.
+	 */
+	public int find(long id) {
+		int mask = capacity - 1;
+		for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+			int position = HEADER_SIZE + slot * SLOT_SIZE;
+			if (buffer.getInt(position + SLOT_SEGMENT) == 0) {
+				return -1;
+			}
+			if (buffer.getLong(position + SLOT_ID) == id) {
+				return slot;
+			}
+		}
+	}
+
+	/**
+	 * Check whether the specified slot is in use.
+	 * @param slot The slot.
+	 * @return True if the slot holds an investigation.
+	 */
+	public boolean isUsed(int slot) {
+		return getSegment(slot) != 0;
+	}
+
+	/**
+	 * Get the investigation identifier held in the specified slot.
+	 * @param slot The slot.
+	 * @return The investigation identifier.
+	 */
+	public long getId(int slot) {
+		return buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_ID);
+	}
+
+	/**
+	 * Get the record version held in the specified slot.
+	 * @param slot The slot.
+	 * @return The record version.
+	 */
+	public long getVersion(int slot) {
+		return buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_VERSION);
+	}
+
+	/**
+	 * Get the record offset within its segment held in the specified slot.
+	 * @param slot The slot.
+	 * @return The record offset.
+	 */
+	public long getOffset(int slot) {
+		return buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_OFFSET);
+	}
+
+	/**
+	 * Get the segment number held in the specified slot.
+	 * @param slot The slot.
+	 * @return The segment number.
+	 */
+	public int getSegment(int slot) {
+		return buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE + SLOT_SEGMENT);
+	}
+
+	/**
+	 * Get the record length held in the specified slot.
+	 * @param slot The slot.
+	 * @return The record length.
+	 */
+	public int getLength(int slot) {
+		return buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE + SLOT_LENGTH);
+	}
+
+	/**
+	 * Add or replace the location of the specified investigation.
+	 * @param id The investigation identifier.
+	 * @param version The record version.
+	 * @param segment The segment number; must be greater than zero.
+	 * @param offset The record offset within the segment.
+	 * @param length The record length.
+	 * @throws IOException When the index could not be grown.
+	 */
+	public void put(long id, long version, int segment, long offset, int length) throws IOException {
+		if ((size + 1) * 2 > capacity) {
+			grow();
+		}
+		int mask = capacity - 1;
+		int slot = hash(id) & mask;
+		while (isUsed(slot) && getId(slot) != id) {
+			slot = (slot + 1) & mask;
+		}
+		if (!isUsed(slot)) {
+			buffer.putInt(HEADER_SIZE_FIELD, ++size);
+		}
+		write(buffer, slot, id, version, segment, offset, length);
+	}
+
+	/**
+	 * Remove all of the investigations from the index.
+	 */
+	public void clear() {
+		for (int slot = 0; slot < capacity; ++slot) {
+			buffer.putInt(HEADER_SIZE + slot * SLOT_SIZE + SLOT_SEGMENT, 0);
+		}
+		size = 0;
+		buffer.putInt(HEADER_SIZE_FIELD, 0);
+	}
+
+	/**
+	 * Write the mapped index content to the index file.
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		buffer.force();
+		buffer = null;
+	}
+
+	/*
+	 * grow doubles the capacity of the index in place: the used slots are
+	 * copied out, the file is extended by mapping it at the new size and the
+	 * slots are rehashed into it.  The index is marked as in use while the
+	 * store is open so an index left half grown by a crash is rebuilt.
+	 */
+	private void grow() throws IOException {
+		ByteBuffer slots = ByteBuffer.allocate(size * SLOT_SIZE);
+		for (int slot = 0; slot < capacity; ++slot) {
+			if (isUsed(slot)) {
+				ByteBuffer used = buffer.duplicate();
+				used.position(HEADER_SIZE + slot * SLOT_SIZE).limit(HEADER_SIZE + (slot + 1) * SLOT_SIZE);
+				slots.put(used);
+			}
+		}
+
+		int grownCapacity = capacity * 2;
+		buffer = map(file, HEADER_SIZE + (long) grownCapacity * SLOT_SIZE);
+		capacity = grownCapacity;
+		buffer.putInt(HEADER_CAPACITY, capacity);
+		for (int slot = 0; slot < capacity; ++slot) {
+			buffer.putInt(HEADER_SIZE + slot * SLOT_SIZE + SLOT_SEGMENT, 0);
+		}
+
+		int mask = capacity - 1;
+		for (int position = 0; position < slots.position(); position += SLOT_SIZE) {
+			long id = slots.getLong(position + SLOT_ID);
+			int target = hash(id) & mask;
+			while (isUsed(target)) {
+				target = (target + 1) & mask;
+			}
+			write(buffer, target, id, slots.getLong(position + SLOT_VERSION), slots.getInt(position + SLOT_SEGMENT),
+					slots.getLong(position + SLOT_OFFSET), slots.getInt(position + SLOT_LENGTH));
+		}
+		buffer.force();
+	}
+
+	/*
+	 * isValid checks the header and length of an existing index file.
+	 */
+	private static boolean isValid(File file) throws IOException {
+		if (file.length() < HEADER_SIZE) {
+			return false;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			int magic = raf.readInt();
+			int version = raf.readInt();
+			int capacity = raf.readInt();
+			return magic == MAGIC && version == FORMAT_VERSION && capacity > 0 && Integer.bitCount(capacity) == 1
+					&& file.length() == HEADER_SIZE + (long) capacity * SLOT_SIZE;
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void write(ByteBuffer buffer, int slot, long id, long version, int segment, long offset, int length) {
+		int position = HEADER_SIZE + slot * SLOT_SIZE;
+		buffer.putLong(position + SLOT_ID, id);
+		buffer.putLong(position + SLOT_VERSION, version);
+		buffer.putLong(position + SLOT_OFFSET, offset);
+		buffer.putInt(position + SLOT_LENGTH, length);
+		// The segment marks the slot as used so it is written last.
+		buffer.putInt(position + SLOT_SEGMENT, segment);
+	}
+
+	/*
+	 * create creates a new empty index file with the specified capacity.
+	 */
+	private static MappedByteBuffer create(File file, int capacity) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			raf.setLength(HEADER_SIZE + (long) capacity * SLOT_SIZE);
+		} finally {
+			raf.close();
+		}
+		MappedByteBuffer buffer = map(file, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+		buffer.putInt(HEADER_MAGIC, MAGIC);
+		buffer.putInt(HEADER_VERSION, FORMAT_VERSION);
+		buffer.putInt(HEADER_CAPACITY, capacity);
+		buffer.putInt(HEADER_SIZE_FIELD, 0);
+		buffer.putInt(HEADER_CLEAN, 0);
+		return buffer;
+	}
+
+	private static MappedByteBuffer map(File file, long length) throws IOException {
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Index file " + file + " is too large");
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			// The mapping remains valid after the channel is closed.
+			return raf.getChannel().map(MapMode.READ_WRITE, 0, length);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/*
+	 * hash spreads the bits of the investigation identifier; identifiers are
+	 * often sequential.
+	 */
+	private static int hash(long id) {
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
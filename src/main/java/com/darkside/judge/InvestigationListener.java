@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+
+/**
+ * InvestigationListener is an interface for receiving investigations as they
+ * are loaded from the Judge Center rather than after the entire set has been
+ * scraped.  Listeners are registered with the Reporter and are notified once
+ * before the first investigation, once for each investigation loaded and once
+ * after the last investigation.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public interface InvestigationListener {
+
+	/**
+	 * Called before any investigations are loaded.
+	 * @param name The display name of the user whose investigations are loaded.
+	 * @param count The expected number of investigations or -1 if unknown.
+	 * @throws IOException
+	 */
+	void investigationsStarted(String name, int count) throws IOException;
+
+	/**
+	 * Called for each investigation once it has been completely loaded.
+	 * @param investigation The loaded Investigation instance.
+	 * @throws IOException
+	 */
+	void investigationLoaded(Investigation investigation) throws IOException;
+
+	/**
+	 * Called after all of the investigations have been loaded.
+	 * @throws IOException
+	 */
+	void investigationsFinished() throws IOException;
+
+}
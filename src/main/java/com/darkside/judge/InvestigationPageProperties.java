@@ -4,6 +4,7 @@
 package com.darkside.judge;
 
 import java.util.*;
+import java.util.regex.*;
 
 /**
  * InvestigationPageProperties is a property wrapper class that upon construction
@@ -32,7 +33,7 @@ public final class InvestigationPageProperties {
 	private final String infractionTable;
 	
 	/** The table 'Key: Value' regular expression pattern. */
-	private final String tableKeyValuePattern;
+	private final Pattern tableKeyValuePattern;
 	
 	/** The statement table HTML identifier. */
 	private final String statementTable;
@@ -44,9 +45,15 @@ public final class InvestigationPageProperties {
 	 * @throws java.io.IOException
 	 */
 	public InvestigationPageProperties(String resourceId) throws java.io.IOException {
-    	Properties properties = new Properties();
-    	properties.load (getClass().getClassLoader ().getResourceAsStream (resourceId));
-    	
+		this(loadResource(resourceId));
+	}
+	
+	/**
+	 * Construct a new InvestigationPageProperties instance from the provided
+	 * properties.
+	 * @param properties The properties to read the page values from.
+	 */
+	public InvestigationPageProperties(Properties properties) {
     	summaryTable = properties.getProperty("investigation.page.summary.table");
     	summaryDatumClass = properties.getProperty("investigation.page.summary.table.datum.class");
     	
@@ -56,9 +63,18 @@ public final class InvestigationPageProperties {
     	
     	infractionTable = properties.getProperty("investigation.page.infraction.table");
     	
-    	tableKeyValuePattern = properties.getProperty("investigation.page.table.row.key_value.pattern");
+    	tableKeyValuePattern = Pattern.compile(properties.getProperty("investigation.page.table.row.key_value.pattern"));
     	
     	statementTable = properties.getProperty("investigation.page.statement.table");
 	}
 	
+	/*
+	 * loadResource loads the properties from the provided resource identifier.
+	 */
+	private static Properties loadResource(String resourceId) throws java.io.IOException {
+		Properties properties = new Properties();
+		properties.load(InvestigationPageProperties.class.getClassLoader().getResourceAsStream(resourceId));
+		return properties;
+	}
+	
 }
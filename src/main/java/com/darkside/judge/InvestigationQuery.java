@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.util.*;
+import lombok.*;
+import org.joda.time.*;
+
+/**
+ * InvestigationQuery is a class that selects which investigations are loaded
+ * from the Judge Center.  The query is evaluated against the information in
+ * the investigation list table before the investigation 'view' tab is loaded,
+ * so investigations that do not match cost no additional requests.  When the
+ * list is sorted by entered date the entered date range also ends paging as
+ * soon as the list moves past the range.
+ * <p>
+ * An empty query matches every investigation.  The status, infraction and
+ * event type sets each match any of their values ignoring case; an empty set
+ * matches any value.  The infraction is matched against the infraction shown
+ * in the investigation list.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.Data
+public class InvestigationQuery {
+
+	/** The earliest entered date to load (inclusive) or null for no limit. */
+	private LocalDate enteredFrom;
+	/** The latest entered date to load (inclusive) or null for no limit. */
+	private LocalDate enteredTo;
+
+	/** The investigation status values to load. */
+	@lombok.Setter(AccessLevel.NONE)
+	private Set<String> statuses = new LinkedHashSet<String>();
+
+	/** The infraction values to load. */
+	@lombok.Setter(AccessLevel.NONE)
+	private Set<String> infractions = new LinkedHashSet<String>();
+
+	/** The event type values to load. */
+	@lombok.Setter(AccessLevel.NONE)
+	private Set<String> eventTypes = new LinkedHashSet<String>();
+
+	/**
+	 * Create a query for the investigations entered within the specified
+	 * number of calendar days up to and including today; one day is today
+	 * only.
+	 * @param days The number of days, at least one.
+	 * @return The new InvestigationQuery instance.
+	 */
+	public static InvestigationQuery enteredWithinDays(int days) {
+		return enteredWithinDays(days, LocalDate.now());
+	}
+
+	/**
+	 * Create a query for the investigations entered within the specified
+	 * number of calendar days up to and including the provided reference
+	 * date; one day is the reference date only.
+	 * @param days The number of days, at least one.
+	 * @param today The reference date the days are counted back from.
+	 * @return The new InvestigationQuery instance.
+	 */
+	public static InvestigationQuery enteredWithinDays(int days, LocalDate today) {
+		if (days < 1) {
+			throw new IllegalArgumentException("The number of days must be at least one: " + days);
+		}
+		InvestigationQuery query = new InvestigationQuery();
+		query.setEnteredFrom(today.minusDays(days - 1));
+		return query;
+	}
+
+	/**
+	 * Check whether the provided investigation matches this query.
+	 * @param investigation The Investigation instance to check.
+	 * @return True if the investigation matches this query.
+	 */
+	public boolean matches(Investigation investigation) {
+		if (!isEnteredInRange(investigation.getEnteredDate())) {
+			return false;
+		}
+		if (!containsIgnoreCase(statuses, investigation.getStatus())) {
+			return false;
+		}
+		if (!containsIgnoreCase(eventTypes, investigation.getEventType())) {
+			return false;
+		}
+		if (!infractions.isEmpty()) {
+			for (String infraction : investigation.getInfractions()) {
+				if (containsIgnoreCase(infractions, infraction)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether the provided entered date is within the entered date range
+	 * of this query.  An unknown entered date is considered in range.
+	 * @param entered The investigation entered date.
+	 * @return True if the entered date is within range.
+	 */
+	public boolean isEnteredInRange(LocalDate entered) {
+		if (entered == null) {
+			return true;
+		}
+		return (enteredFrom == null || !entered.isBefore(enteredFrom)) && (enteredTo == null || !entered.isAfter(enteredTo));
+	}
+
+	/**
+	 * Check whether an investigation with the provided entered date, and every
+	 * investigation after it in a list sorted by entered date, is outside the
+	 * entered date range of this query.
+	 * @param entered The investigation entered date.
+	 * @param descending True if the list is sorted with the most recently
+	 * 		entered investigation first; false if sorted oldest first.
+	 * @return True if no later investigation in the list can match.
+	 */
+	public boolean isPastRange(LocalDate entered, boolean descending) {
+		if (entered == null) {
+			return false;
+		}
+		return descending ? enteredFrom != null && entered.isBefore(enteredFrom) : enteredTo != null && entered.isAfter(enteredTo);
+	}
+
+	/*
+	 * containsIgnoreCase checks whether the set is empty or contains the value
+	 * ignoring case.
+	 */
+	private static boolean containsIgnoreCase(Set<String> values, String value) {
+		if (values.isEmpty()) {
+			return true;
+		}
+		for (String v : values) {
+			if (v.equalsIgnoreCase(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,659 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.regex.*;
+import java.util.zip.*;
+
+/**
+ * InvestigationStore is an embedded store that keeps the scraped investigations
+ * across runs.  Investigations are appended sequentially to segment files in
+ * the store directory and located through a memory-mapped id to record
+ * location index (see InvestigationIndex), so a lookup costs a single read.
+ * <p>
+ * Every stored investigation is versioned; storing an investigation that
+ * changed since it was last stored appends a new version that supersedes the
+ * previous one, while storing an unchanged investigation writes nothing.
+ * Compaction copies the current versions out of sealed segments that are
+ * mostly superseded and deletes those segments; it may be run on demand with
+ * compact() or periodically in the background with startCompaction().
+ * <p>
+ * Each record carries a CRC32 checksum.  The index is marked as in use while
+ * the store is open; when the store is opened after a crash the index is
+ * rebuilt from the segment files and a partially written record at the end of
+ * a segment is truncated.  Records are forced to disk before put returns
+ * unless syncWrites is disabled; the force is made outside the store lock so
+ * readers are not blocked while it completes.
+ * <p>
+ * Any number of threads may read from the store while investigations are
+ * being stored.  The store is an InvestigationListener so it may be added to
+ * a Reporter to store investigations as they are loaded.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class InvestigationStore implements InvestigationListener, Closeable {
+
+	/* The record identifier ("JCR1") */
+	private static final int RECORD_MAGIC = 0x4A435231;
+	/* The record header layout: magic, payload length, checksum, id and version */
+	private static final int RECORD_HEADER_SIZE = 28;
+	/* The index file name */
+	private static final String INDEX_FILE = "investigations.idx";
+	/* The segment file name format */
+	private static final String SEGMENT_FILE = "segment-%08d.log";
+	private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d{8})\\.log");
+
+	/* The store directory */
+	@lombok.Getter
+	private final File directory;
+	/* Guards the index and the segments; shared by readers */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	/* Ensures only one compaction runs at a time */
+	private final Object compactionLock = new Object();
+	/* The segments by segment number */
+	private final NavigableMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+	/* The id to record location index */
+	private final InvestigationIndex index;
+	/* The segment new records are appended to */
+	private Segment active;
+	/* The background compaction executor, if started */
+	private ScheduledExecutorService compactor;
+	/* True once the store is closed */
+	private volatile boolean closed;
+
+	/** The segment size after which a new segment is started. */
+	@lombok.Getter @lombok.Setter
+	private long maxSegmentBytes = 16L * 1024 * 1024;
+	/** The fraction of live bytes below which a sealed segment is compacted. */
+	@lombok.Getter @lombok.Setter
+	private double compactionThreshold = 0.5;
+	/** True to force each record to disk as it is written. */
+	@lombok.Getter @lombok.Setter
+	private boolean syncWrites = true;
+
+	/**
+	 * Open the store in the specified directory, creating the directory if it
+	 * does not exist.
+	 * @param directory The store directory.
+	 * @throws IOException
+	 */
+	public InvestigationStore(File directory) throws IOException {
+		this.directory = directory;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create the store directory " + directory);
+		}
+
+		File[] files = directory.listFiles();
+		for (File file : files != null ? files : new File[0]) {
+			Matcher matcher = SEGMENT_PATTERN.matcher(file.getName());
+			if (matcher.matches()) {
+				int number = Integer.parseInt(matcher.group(1));
+				segments.put(number, new Segment(number, file));
+			}
+		}
+
+		index = new InvestigationIndex(new File(directory, INDEX_FILE), 1024);
+		if (!index.isClean() || !isIndexConsistent()) {
+			log.info("Rebuilding the investigation index of " + directory);
+			rebuildIndex();
+		}
+		for (int slot = 0; slot < index.capacity(); ++slot) {
+			if (index.isUsed(slot)) {
+				segments.get(index.getSegment(slot)).liveBytes += index.getLength(slot);
+			}
+		}
+		index.setClean(false);
+
+		active = segments.isEmpty() ? newSegment() : segments.lastEntry().getValue();
+		log.debug("Opened the investigation store " + directory + " with " + index.size() + " investigations in " + segments.size() + " segments");
+	}
+
+	/**
+	 * Store the provided investigation.  The investigation supersedes any
+	 * previously stored version unless it is unchanged.
+	 * @param investigation The Investigation instance to store.
+	 * @return The version of the stored investigation.
+	 * @throws IOException
+	 */
+	public long put(Investigation investigation) throws IOException {
+		byte[] payload = InvestigationCodec.encode(investigation);
+		long id = investigation.getId();
+
+		Segment written;
+		long version = 1;
+		lock.writeLock().lock();
+		try {
+			ensureOpen();
+			int slot = index.find(id);
+			if (slot >= 0) {
+				Segment segment = segments.get(index.getSegment(slot));
+				if (index.getLength(slot) == RECORD_HEADER_SIZE + payload.length
+						&& Arrays.equals(payload, readPayload(segment, index.getOffset(slot), index.getLength(slot), id))) {
+					return index.getVersion(slot);
+				}
+				segment.liveBytes -= index.getLength(slot);
+				version = index.getVersion(slot) + 1;
+			}
+			written = append(encodeRecord(id, version, payload), id, version);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (syncWrites) {
+			sync(written);
+		}
+		return version;
+	}
+
+	/**
+	 * Get the current version of the specified investigation.
+	 * @param id The investigation identifier.
+	 * @return The Investigation instance or null if it is not stored.
+	 * @throws IOException
+	 */
+	public Investigation get(long id) throws IOException {
+		byte[] payload;
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			int slot = index.find(id);
+			if (slot < 0) {
+				return null;
+			}
+			payload = readPayload(segments.get(index.getSegment(slot)), index.getOffset(slot), index.getLength(slot), id);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return InvestigationCodec.decode(payload);
+	}
+
+	/**
+	 * Get the current version number of the specified investigation.
+	 * @param id The investigation identifier.
+	 * @return The version number or zero if the investigation is not stored.
+	 */
+	public long getVersion(long id) {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			int slot = index.find(id);
+			return slot >= 0 ? index.getVersion(slot) : 0;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Check whether the specified investigation is stored.
+	 * @param id The investigation identifier.
+	 * @return True if the investigation is stored.
+	 */
+	public boolean contains(long id) {
+		return getVersion(id) > 0;
+	}
+
+	/**
+	 * Get the number of stored investigations.
+	 * @return The number of investigations.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			return index.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the identifiers of the stored investigations.
+	 * @return The investigation identifiers in ascending order.
+	 */
+	public long[] getIds() {
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			long[] ids = new long[index.size()];
+			int n = 0;
+			for (int slot = 0; slot < index.capacity(); ++slot) {
+				if (index.isUsed(slot)) {
+					ids[n++] = index.getId(slot);
+				}
+			}
+			Arrays.sort(ids);
+			return ids;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the number of segment files.
+	 * @return The number of segments.
+	 */
+	public int getSegmentCount() {
+		lock.readLock().lock();
+		try {
+			return segments.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the total size of the segment files.
+	 * @return The number of bytes used by all versions.
+	 */
+	public long getTotalBytes() {
+		lock.readLock().lock();
+		try {
+			long total = 0;
+			for (Segment segment : segments.values()) {
+				total += segment.size;
+			}
+			return total;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the size of the current versions of the stored investigations.
+	 * @return The number of bytes used by the current versions.
+	 */
+	public long getLiveBytes() {
+		lock.readLock().lock();
+		try {
+			long live = 0;
+			for (Segment segment : segments.values()) {
+				live += segment.liveBytes;
+			}
+			return live;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Force the stored investigations and the index to disk.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		// The shared lock keeps writers out while still allowing reads.
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			active.channel.force(false);
+			index.force();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Compact the sealed segments whose fraction of live bytes is below the
+	 * compaction threshold and delete the sealed segments that are empty.  The current versions are copied to the active
+	 * segment then the compacted segments are deleted.  Readers and writers
+	 * are only blocked while each record is moved.
+	 * @return The number of bytes reclaimed.
+	 * @throws IOException
+	 */
+	public long compact() throws IOException {
+		synchronized (compactionLock) {
+			List<Segment> candidates = new ArrayList<Segment>();
+			lock.readLock().lock();
+			try {
+				ensureOpen();
+				for (Segment segment : segments.values()) {
+					if (segment != active && (segment.liveBytes == 0 || segment.liveBytes < segment.size * compactionThreshold)) {
+						candidates.add(segment);
+					}
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
+
+			long reclaimed = 0;
+			for (Segment segment : candidates) {
+				reclaimed += compact(segment);
+			}
+			if (reclaimed > 0) {
+				log.debug("Compaction of " + candidates.size() + " segments reclaimed " + reclaimed + " bytes");
+			}
+			return reclaimed;
+		}
+	}
+
+	/**
+	 * Start compacting the store periodically in a background thread.
+	 * @param period The period between compactions.
+	 * @param unit The period time unit.
+	 */
+	public synchronized void startCompaction(long period, TimeUnit unit) {
+		if (compactor != null) {
+			throw new IllegalStateException("Compaction already started");
+		}
+		compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "investigation-store-compactor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		compactor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					compact();
+				} catch (IOException | RuntimeException e) {
+					if (!closed) {
+						log.warn("Compaction of " + directory + " failed", e);
+					}
+				}
+			}
+		}, period, period, unit);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationsStarted(java.lang.String, int)
+	 */
+	@Override
+	public void investigationsStarted(String name, int count) throws IOException {
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationLoaded(com.darkside.judge.Investigation)
+	 */
+	@Override
+	public void investigationLoaded(Investigation investigation) throws IOException {
+		put(investigation);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationsFinished()
+	 */
+	@Override
+	public void investigationsFinished() throws IOException {
+		flush();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (compactor != null) {
+				compactor.shutdown();
+			}
+		}
+		synchronized (compactionLock) {
+			lock.writeLock().lock();
+			try {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				active.channel.force(true);
+				index.setClean(true);
+				index.close();
+				for (Segment segment : segments.values()) {
+					segment.channel.close();
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/*
+	 * compact moves the current versions out of the provided segment then
+	 * deletes the segment.  Each record is read under the shared lock and
+	 * moved under the exclusive lock only if it is still the current version.
+	 */
+	private long compact(Segment segment) throws IOException {
+		List<long[]> live = new ArrayList<long[]>();
+		lock.readLock().lock();
+		try {
+			ensureOpen();
+			for (int slot = 0; slot < index.capacity(); ++slot) {
+				if (index.isUsed(slot) && index.getSegment(slot) == segment.number) {
+					live.add(new long[] { index.getId(slot), index.getOffset(slot), index.getLength(slot) });
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		for (long[] entry : live) {
+			long id = entry[0];
+			long offset = entry[1];
+			int length = (int) entry[2];
+			ByteBuffer record = ByteBuffer.allocate(length);
+			lock.readLock().lock();
+			try {
+				ensureOpen();
+				segment.readFully(record, offset);
+			} finally {
+				lock.readLock().unlock();
+			}
+			record.flip();
+
+			lock.writeLock().lock();
+			try {
+				ensureOpen();
+				int slot = index.find(id);
+				if (slot >= 0 && index.getSegment(slot) == segment.number && index.getOffset(slot) == offset) {
+					segment.liveBytes -= length;
+					append(record, id, index.getVersion(slot));
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			ensureOpen();
+			if (segment.liveBytes > 0) {
+				return 0;
+			}
+			// The moved records must be on disk before their old copies are removed.
+			active.channel.force(false);
+			index.force();
+			segments.remove(segment.number);
+			segment.channel.close();
+			if (!segment.file.delete()) {
+				throw new IOException("Unable to delete the compacted segment " + segment.file);
+			}
+			return segment.size;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * append writes the record to the active segment, starting a new segment
+	 * when the active segment is full, then points the index at the record.
+	 * The record is not forced to disk; returns the segment it was written to.
+	 * Must be called holding the exclusive lock.
+	 */
+	private Segment append(ByteBuffer record, long id, long version) throws IOException {
+		int length = record.remaining();
+		if (active.size > 0 && active.size + length > maxSegmentBytes) {
+			active.channel.force(false);
+			active = newSegment();
+		}
+		long offset = active.size;
+		while (record.hasRemaining()) {
+			active.channel.write(record, offset + length - record.remaining());
+		}
+		active.size += length;
+		active.liveBytes += length;
+		index.put(id, version, active.number, offset, length);
+		return active;
+	}
+
+	/*
+	 * sync forces the provided segment to disk without holding the store
+	 * lock.  A segment closed in the meantime, by compaction or by closing
+	 * the store, was forced to disk before it was closed.
+	 */
+	private void sync(Segment segment) throws IOException {
+		try {
+			segment.channel.force(false);
+		} catch (ClosedByInterruptException e) {
+			throw e;
+		} catch (ClosedChannelException e) {
+			log.debug("Segment " + segment.file + " was closed before it was synced");
+		}
+	}
+
+	/*
+	 * encodeRecord creates a record; the checksum covers the id, version and
+	 * payload.
+	 */
+	private static ByteBuffer encodeRecord(long id, long version, byte[] payload) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+		record.putInt(RECORD_MAGIC);
+		record.putInt(payload.length);
+		record.putInt(0);
+		record.putLong(id);
+		record.putLong(version);
+		record.put(payload);
+		record.putInt(8, checksum(record.array(), record.arrayOffset()));
+		record.flip();
+		return record;
+	}
+
+	private static int checksum(byte[] record, int offset) {
+		CRC32 crc = new CRC32();
+		crc.update(record, offset + 12, record.length - offset - 12);
+		return (int) crc.getValue();
+	}
+
+	/*
+	 * readPayload reads and verifies a record then returns its payload.
+	 */
+	private byte[] readPayload(Segment segment, long offset, int length, long id) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(length);
+		segment.readFully(record, offset);
+		if (record.getInt(0) != RECORD_MAGIC || record.getInt(4) != length - RECORD_HEADER_SIZE
+				|| record.getInt(8) != checksum(record.array(), 0) || record.getLong(12) != id) {
+			throw new IOException("Corrupt record for investigation " + id + " in " + segment.file + " @" + offset);
+		}
+		return Arrays.copyOfRange(record.array(), RECORD_HEADER_SIZE, length);
+	}
+
+	/*
+	 * rebuildIndex recreates the index by scanning every segment in order; the
+	 * highest version of each investigation wins and the later copy of equal
+	 * versions wins.  A segment is truncated at the first record that is
+	 * incomplete or fails its checksum.
+	 */
+	private void rebuildIndex() throws IOException {
+		index.clear();
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		for (Segment segment : segments.values()) {
+			long offset = 0;
+			while (offset + RECORD_HEADER_SIZE <= segment.size) {
+				header.clear();
+				segment.readFully(header, offset);
+				int length = RECORD_HEADER_SIZE + header.getInt(4);
+				if (header.getInt(0) != RECORD_MAGIC || length < RECORD_HEADER_SIZE || offset + length > segment.size) {
+					break;
+				}
+				ByteBuffer record = ByteBuffer.allocate(length);
+				segment.readFully(record, offset);
+				if (record.getInt(8) != checksum(record.array(), 0)) {
+					break;
+				}
+
+				long id = record.getLong(12);
+				long version = record.getLong(20);
+				int slot = index.find(id);
+				if (slot < 0 || index.getVersion(slot) <= version) {
+					index.put(id, version, segment.number, offset, length);
+				}
+				offset += length;
+			}
+			if (offset < segment.size) {
+				log.warn("Truncating " + segment.file + " at " + offset + " of " + segment.size + " bytes");
+				segment.channel.truncate(offset);
+				segment.channel.force(true);
+				segment.size = offset;
+			}
+		}
+		index.force();
+	}
+
+	/*
+	 * isIndexConsistent checks that every index entry refers to a record
+	 * within an existing segment.
+	 */
+	private boolean isIndexConsistent() {
+		for (int slot = 0; slot < index.capacity(); ++slot) {
+			if (index.isUsed(slot)) {
+				Segment segment = segments.get(index.getSegment(slot));
+				if (segment == null || index.getOffset(slot) + index.getLength(slot) > segment.size) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * newSegment creates the segment following the last segment.
+	 */
+	private Segment newSegment() throws IOException {
+		int number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+		Segment segment = new Segment(number, new File(directory, String.format(SEGMENT_FILE, number)));
+		segments.put(number, segment);
+		return segment;
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("The investigation store " + directory + " is closed");
+		}
+	}
+
+	/*
+	 * Segment is a single segment file.  Reads use positional channel reads so
+	 * they may be made concurrently.
+	 */
+	private static final class Segment {
+
+		final int number;
+		final File file;
+		final FileChannel channel;
+		long size;
+		long liveBytes;
+
+		Segment(int number, File file) throws IOException {
+			this.number = number;
+			this.file = file;
+			this.channel = new RandomAccessFile(file, "rw").getChannel();
+			this.size = channel.size();
+		}
+
+		void readFully(ByteBuffer buffer, long offset) throws IOException {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, offset + buffer.position()) < 0) {
+					throw new EOFException("Unexpected end of " + file + " @" + offset);
+				}
+			}
+		}
+
+	}
+
+}
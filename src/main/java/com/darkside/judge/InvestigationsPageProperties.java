@@ -49,6 +49,10 @@ public final class InvestigationsPageProperties {
 	private final String linkTab;
 	/** The next page link element identifier. */
 	private final String linkNextPage;
+	/** The page index postback target or null if pages cannot be selected directly. */
+	private final String linkPageTarget;
+	/** The page index postback pre-formatted argument. */
+	private final String linkPageArgument;
 	
 	/** The form view tab element identifier. */
 	private final String viewTab;
@@ -61,6 +65,13 @@ public final class InvestigationsPageProperties {
 	private final Pattern tableDatePattern;
 	/** The investigation table date formatter instance. */
 	private final DateTimeFormatter tableDateFormat;
+	/** The investigation table entered date column or -1 if it is not listed. */
+	private final int tableEnteredDateColumn;
+	/**
+	 * True if the investigation table is sorted most recently entered first,
+	 * false if oldest first or null if it is not sorted by entered date.
+	 */
+	private final Boolean tableEnteredDateDescending;
 	
 	/**
 	 * Construct a new InvestigationsPageProperties instance from the provided
@@ -69,9 +80,15 @@ public final class InvestigationsPageProperties {
 	 * @throws java.io.IOException
 	 */
 	public InvestigationsPageProperties(String resourceId) throws java.io.IOException {
-		Properties properties = new Properties();
-		properties.load(getClass().getClassLoader().getResourceAsStream(resourceId));
-
+		this(loadResource(resourceId));
+	}
+	
+	/**
+	 * Construct a new InvestigationsPageProperties instance from the provided
+	 * properties.
+	 * @param properties The properties to read the page values from.
+	 */
+	public InvestigationsPageProperties(Properties properties) {
 		pageUri = properties.getProperty("investigations.page.uri");
 		
 		formName = properties.getProperty("investigations.page.form");
@@ -90,6 +107,8 @@ public final class InvestigationsPageProperties {
 
 		linkTab = properties.getProperty("investigations.page.link.tab");
 		linkNextPage = properties.getProperty("investigations.page.link.next_page");
+		linkPageTarget = properties.getProperty("investigations.page.link.page.target");
+		linkPageArgument = properties.getProperty("investigations.page.link.page.argument");
 		
 		viewTab = properties.getProperty("investigations.page.view.tab");
 
@@ -97,6 +116,34 @@ public final class InvestigationsPageProperties {
 		tableRowClass = properties.getProperty("investigations.page.table.row.class");
 		tableDatePattern = Pattern.compile(properties.getProperty("investigations.page.table.date_regex"));
 		tableDateFormat = DateTimeFormat.forPattern(properties.getProperty("investigations.page.table.date_format")).withLocale(Locale.US);
+		tableEnteredDateColumn = Integer.parseInt(properties.getProperty("investigations.page.table.entered_date.column", "-1"));
+		tableEnteredDateDescending = parseOrder(properties.getProperty("investigations.page.table.entered_date.order", "none"));
+	}
+	
+	/*
+	 * parseOrder reads an entered date sort order ('ascending', 'descending'
+	 * or 'none') as whether it is descending, or null when unsorted.
+	 */
+	private static Boolean parseOrder(String order) {
+		switch (order.trim().toLowerCase(Locale.US)) {
+		case "ascending":
+			return Boolean.FALSE;
+		case "descending":
+			return Boolean.TRUE;
+		case "none":
+			return null;
+		default:
+			throw new IllegalArgumentException("Unknown entered date order: " + order);
+		}
+	}
+	
+	/*
+	 * loadResource loads the properties from the provided resource identifier.
+	 */
+	private static Properties loadResource(String resourceId) throws java.io.IOException {
+		Properties properties = new Properties();
+		properties.load(InvestigationsPageProperties.class.getClassLoader().getResourceAsStream(resourceId));
+		return properties;
 	}
 	
 }
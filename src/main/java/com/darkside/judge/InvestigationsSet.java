@@ -20,6 +20,17 @@ class InvestigationsSet implements Iterable<Investigation> {
 	private final String name;
 	/** The list of investigation instances. */
 	private final List<Investigation> investigations;
+	/** The list of investigations that could not be loaded. */
+	private final List<InvestigationError> errors;
+
+	/**
+	 * Construct a new InvestigationsSet instance without any errors.
+	 * @param name The display name of the user.
+	 * @param investigations The list of investigation instances.
+	 */
+	public InvestigationsSet(String name, List<Investigation> investigations) {
+		this(name, investigations, new ArrayList<InvestigationError>());
+	}
 
 	/**
 	 * Get the size of this InvestigationSet.
@@ -38,6 +49,38 @@ class InvestigationsSet implements Iterable<Investigation> {
 		return investigations.get(index);
 	}
 	
+	/**
+	 * Get the investigations that could not be loaded.
+	 * @return The list of InvestigationError instances in the order the
+	 * 		investigations were found.
+	 */
+	public List<InvestigationError> getErrors() {
+		return Collections.unmodifiableList(errors);
+	}
+	
+	/**
+	 * Get the error for the specified investigation identifier.
+	 * @param id The investigation identifier.
+	 * @return The InvestigationError instance or null if the investigation
+	 * 		did not fail to load.
+	 */
+	public InvestigationError getError(long id) {
+		for (InvestigationError error : errors) {
+			if (error.getId() == id) {
+				return error;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Check whether any investigations could not be loaded.
+	 * @return True if any investigation could not be loaded.
+	 */
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Iterable#iterator()
 	 */
@@ -40,9 +40,16 @@ public final class LoginPageProperties {
 	 * @throws java.io.IOException
 	 */
 	public LoginPageProperties(String resourceId) throws java.io.IOException {
-    	Properties properties = new Properties();
-    	properties.load (getClass().getClassLoader ().getResourceAsStream (resourceId));
-    	
+		this(loadResource(resourceId));
+	}
+	
+	/**
+	 * Construct a new LoginPageProperties instance from the provided
+	 * properties.
+	 * @param properties The properties to read the page values from.
+	 * @throws MalformedURLException
+	 */
+	public LoginPageProperties(Properties properties) throws MalformedURLException {
     	pageUri = properties.getProperty ("login.page.uri");
     	formName = properties.getProperty ("login.page.formname");
     	inputUserId = properties.getProperty ("login.page.input.userid");
@@ -53,4 +60,13 @@ public final class LoginPageProperties {
     	successUrl = new URL(properties.getProperty ("login.page.success.url"));
 	}
 	
+	/*
+	 * loadResource loads the properties from the provided resource identifier.
+	 */
+	private static Properties loadResource(String resourceId) throws java.io.IOException {
+		Properties properties = new Properties();
+		properties.load(LoginPageProperties.class.getClassLoader().getResourceAsStream(resourceId));
+		return properties;
+	}
+	
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import org.apache.http.*;
+import org.apache.http.client.config.*;
+import org.apache.http.client.protocol.*;
+import org.apache.http.config.*;
+import org.apache.http.entity.*;
+import org.apache.http.impl.*;
+import org.apache.http.impl.client.*;
+import org.apache.http.protocol.*;
+import com.gargoylesoftware.htmlunit.*;
+
+/**
+ * PooledWebConnection is an HtmlUnit WebConnection that replaces the default
+ * HttpWebConnection transport settings with ones tuned for the long chain of
+ * postbacks made against the Judge Center: a larger keep-alive connection
+ * pool with a bounded keep-alive period, gzip/deflate response compression,
+ * and configurable connect, socket read and pool lease timeouts.  Every
+ * request is accounted for in a TransportStatistics instance recording the
+ * bytes received over the wire and after decompression and the latency.
+ * <p>
+ * Install it on a WebClient with
+ * {@code client.setWebConnection(new PooledWebConnection(client, properties))}.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class PooledWebConnection extends HttpWebConnection {
+
+	/* The transport settings */
+	private final TransportProperties properties;
+	/* The accumulated transport statistics */
+	@lombok.Getter
+	private final TransportStatistics statistics = new TransportStatistics();
+	/* The wire and decoded byte counts of the request made by the current thread */
+	private final ThreadLocal<long[]> requestBytes = new ThreadLocal<long[]>();
+
+	/**
+	 * Construct a new PooledWebConnection instance for the provided client.
+	 * @param client The WebClient instance the connection is used by.
+	 * @param properties The transport settings.
+	 */
+	public PooledWebConnection(WebClient client, TransportProperties properties) {
+		super(client);
+		this.properties = properties;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.gargoylesoftware.htmlunit.HttpWebConnection#getResponse(com.gargoylesoftware.htmlunit.WebRequest)
+	 */
+	@Override
+	public WebResponse getResponse(WebRequest request) throws IOException {
+		long[] bytes = new long[2];
+		requestBytes.set(bytes);
+		long start = System.nanoTime();
+		try {
+			WebResponse response = super.getResponse(request);
+			long latency = System.nanoTime() - start;
+			statistics.recordRequest(bytes[0], bytes[1], latency);
+			if (log.isDebugEnabled()) {
+				log.debug(request.getHttpMethod() + " " + request.getUrl() + " -> " + response.getStatusCode()
+						+ ": " + bytes[0] + " bytes received, " + bytes[1] + " decoded, " + (latency / 1000000) + "ms");
+			}
+			return response;
+		} finally {
+			requestBytes.remove();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.gargoylesoftware.htmlunit.HttpWebConnection#createHttpClient()
+	 */
+	@Override
+	protected HttpClientBuilder createHttpClient() {
+		HttpClientBuilder builder = super.createHttpClient();
+
+		// The connection manager is created from these builder values on first use.
+		builder.setMaxConnPerRoute(properties.getMaxConnectionsPerRoute());
+		builder.setMaxConnTotal(properties.getMaxConnections());
+		builder.setDefaultSocketConfig(SocketConfig.custom()
+				.setSoTimeout(properties.getSocketTimeout())
+				.setSoKeepAlive(true)
+				.setTcpNoDelay(true)
+				.build());
+		builder.setConnectionReuseStrategy(DefaultConnectionReuseStrategy.INSTANCE);
+		builder.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+			@Override
+			public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+				// Honour the server's Keep-Alive timeout but never keep a connection indefinitely.
+				long duration = super.getKeepAliveDuration(response, context);
+				return duration > 0 ? duration : properties.getKeepAliveMillis();
+			}
+		});
+		if (!properties.isCompression()) {
+			builder.disableContentCompression();
+		}
+
+		// Apply the timeouts on top of the request configuration HtmlUnit uses.
+		builder.addInterceptorLast(new HttpRequestInterceptor() {
+			public void process(HttpRequest request, HttpContext context) {
+				HttpClientContext clientContext = HttpClientContext.adapt(context);
+				clientContext.setRequestConfig(RequestConfig.copy(clientContext.getRequestConfig())
+						.setConnectTimeout(properties.getConnectTimeout())
+						.setSocketTimeout(properties.getSocketTimeout())
+						.setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+						.setStaleConnectionCheckEnabled(properties.isStaleCheck())
+						.build());
+			}
+		});
+
+		// Count the response bytes before the body is decompressed.
+		builder.addInterceptorFirst(new HttpResponseInterceptor() {
+			public void process(HttpResponse response, HttpContext context) {
+				long[] bytes = requestBytes.get();
+				HttpEntity entity = response.getEntity();
+				if (bytes != null && entity != null) {
+					response.setEntity(new CountingEntity(entity, bytes, 0));
+				}
+				countConnection(context);
+			}
+		});
+		return builder;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.gargoylesoftware.htmlunit.HttpWebConnection#downloadResponseBody(org.apache.http.HttpResponse)
+	 */
+	@Override
+	protected DownloadedContent downloadResponseBody(HttpResponse response) throws IOException {
+		// Count the response bytes after the body is decompressed.
+		long[] bytes = requestBytes.get();
+		HttpEntity entity = response.getEntity();
+		if (bytes != null && entity != null) {
+			response.setEntity(new CountingEntity(entity, bytes, 1));
+		}
+		return super.downloadResponseBody(response);
+	}
+
+	/*
+	 * countConnection records a new connection when the response was the first
+	 * one received on its connection.
+	 */
+	private void countConnection(HttpContext context) {
+		try {
+			HttpConnection connection = HttpClientContext.adapt(context).getConnection();
+			if (connection != null && connection.getMetrics().getRequestCount() == 1) {
+				statistics.recordConnection();
+			}
+		} catch (IllegalStateException ise) {
+			// The connection of a response without a body may already be released.
+		}
+	}
+
+	/*
+	 * CountingEntity is an entity wrapper that adds the number of bytes read
+	 * from the wrapped entity content to one of the request byte counters.
+	 */
+	private static final class CountingEntity extends HttpEntityWrapper {
+
+		private final long[] bytes;
+		private final int index;
+
+		CountingEntity(HttpEntity entity, long[] bytes, int index) {
+			super(entity);
+			this.bytes = bytes;
+			this.index = index;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			return new FilterInputStream(super.getContent()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b >= 0) {
+						++bytes[index];
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) throws IOException {
+					int read = super.read(buffer, offset, length);
+					if (read > 0) {
+						bytes[index] += read;
+					}
+					return read;
+				}
+			};
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			InputStream in = getContent();
+			try {
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					out.write(buffer, 0, read);
+				}
+			} finally {
+				in.close();
+			}
+		}
+
+	}
+
+}
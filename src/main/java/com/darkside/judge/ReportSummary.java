@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.util.*;
+import org.joda.time.*;
+
+/**
+ * ReportSummary is a class that accumulates the summary totals of a report
+ * one investigation at a time.  Only counters are retained so the summary of
+ * any number of investigations takes a constant amount of memory (bounded by
+ * the number of distinct investigation status values).
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.Getter
+public class ReportSummary {
+
+	/** The status used for investigations without a status. */
+	public static final String NO_STATUS = "(none)";
+
+	/** The total number of investigations. */
+	private int investigations;
+	/** The total number of witnesses. */
+	private int witnesses;
+	/** The total number of statements. */
+	private int statements;
+	/** The earliest investigation entered date. */
+	private LocalDate earliestEnteredDate;
+	/** The latest investigation entered date. */
+	private LocalDate latestEnteredDate;
+
+	/** The number of investigations for each status in order of appearance. */
+	@lombok.Getter(lombok.AccessLevel.NONE)
+	private final Map<String, int[]> statusCounts = new LinkedHashMap<String, int[]>();
+
+	/**
+	 * Add the provided investigation to the summary totals.
+	 * @param investigation The Investigation instance to count.
+	 */
+	public void add(Investigation investigation) {
+		++investigations;
+		witnesses += investigation.getWitnesses().size();
+		statements += investigation.getStatements().size();
+
+		LocalDate entered = investigation.getEnteredDate();
+		if (entered != null) {
+			if (earliestEnteredDate == null || entered.isBefore(earliestEnteredDate)) {
+				earliestEnteredDate = entered;
+			}
+			if (latestEnteredDate == null || entered.isAfter(latestEnteredDate)) {
+				latestEnteredDate = entered;
+			}
+		}
+
+		String status = statusOf(investigation);
+		int[] count = statusCounts.get(status);
+		if (count == null) {
+			statusCounts.put(status, count = new int[1]);
+		}
+		++count[0];
+	}
+
+	/**
+	 * Get the status values in the order they were first seen.
+	 * @return The set of status values.
+	 */
+	public Set<String> getStatuses() {
+		return Collections.unmodifiableSet(statusCounts.keySet());
+	}
+
+	/**
+	 * Get the number of investigations with the specified status.
+	 * @param status The status value.
+	 * @return The number of investigations with that status.
+	 */
+	public int getStatusCount(String status) {
+		int[] count = statusCounts.get(status);
+		return count != null ? count[0] : 0;
+	}
+
+	/**
+	 * Get the status of the provided investigation for reporting purposes.
+	 * @param investigation The Investigation instance.
+	 * @return The investigation status or NO_STATUS when it has none.
+	 */
+	public static String statusOf(Investigation investigation) {
+		String status = investigation.getStatus();
+		return status != null && !status.isEmpty() ? status : NO_STATUS;
+	}
+
+}
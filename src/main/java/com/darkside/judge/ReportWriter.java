@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * ReportWriter is the base class for the investigation report renderers.  A
+ * report is streamed: each investigation is rendered as soon as it is
+ * received into a temporary spool file for its status group, and the summary
+ * section is built from incremental counters.  When the investigations are
+ * finished the summary is written followed by each status group, in the order
+ * the statuses were first seen, copied from its spool file.  Rendering a
+ * report therefore takes a constant amount of memory (bounded by the number of
+ * distinct status values) and linear time in the number of investigations,
+ * whatever order the investigations arrive in.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class ReportWriter implements InvestigationListener, Closeable {
+
+	/* The encoding of the status group spool files */
+	private static final Charset SPOOL_CHARSET = Charset.forName("UTF-8");
+
+	/**
+	 * The writer the report is written to; while an investigation is written
+	 * it writes to the spool file of the investigation status group.
+	 */
+	protected final Writer out;
+
+	/* The writer of the report itself */
+	private final Writer report;
+	/* The directory of the spool files or null for the default temporary directory */
+	private final File spoolDirectory;
+	/* The summary totals for the investigations written so far */
+	private final ReportSummary summary = new ReportSummary();
+	/* The spool file of each status group in the order the statuses were first seen */
+	private final Map<String, Spool> spools = new LinkedHashMap<String, Spool>();
+	/* The writer that out currently writes to */
+	private Writer target;
+
+	/**
+	 * Construct a new ReportWriter instance writing to the provided writer and
+	 * spooling the status groups in the default temporary directory.
+	 * @param out The writer the report is written to.
+	 */
+	protected ReportWriter(Writer out) {
+		this(out, null);
+	}
+
+	/**
+	 * Construct a new ReportWriter instance writing to the provided writer.
+	 * @param out The writer the report is written to.
+	 * @param spoolDirectory The directory the status group spool files are
+	 * 		created in or null for the default temporary directory.
+	 */
+	protected ReportWriter(Writer out, File spoolDirectory) {
+		this.report = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+		this.spoolDirectory = spoolDirectory;
+		this.target = report;
+		this.out = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				target.write(cbuf, off, len);
+			}
+
+			@Override
+			public void write(String str, int off, int len) throws IOException {
+				target.write(str, off, len);
+			}
+
+			@Override
+			public void write(int c) throws IOException {
+				target.write(c);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				target.flush();
+			}
+
+			@Override
+			public void close() throws IOException {
+				target.close();
+			}
+		};
+	}
+
+	/**
+	 * Render a complete report for the provided investigations.
+	 * @param name The display name of the user the report is for.
+	 * @param investigations The investigations to report.
+	 * @throws IOException
+	 */
+	public void render(String name, Iterable<Investigation> investigations) throws IOException {
+		investigationsStarted(name, -1);
+		for (Investigation investigation : investigations) {
+			investigationLoaded(investigation);
+		}
+		investigationsFinished();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationsStarted(java.lang.String, int)
+	 */
+	public void investigationsStarted(String name, int count) throws IOException {
+		writeHeader(name, count);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationLoaded(com.darkside.judge.Investigation)
+	 */
+	public void investigationLoaded(Investigation investigation) throws IOException {
+		String status = ReportSummary.statusOf(investigation);
+		Spool spool = spools.get(status);
+		if (spool == null) {
+			spool = new Spool(File.createTempFile("report-", ".spool", spoolDirectory));
+			spools.put(status, spool);
+		}
+		target = spool.writer;
+		try {
+			writeInvestigation(investigation);
+		} finally {
+			target = report;
+		}
+		summary.add(investigation);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationsFinished()
+	 */
+	public void investigationsFinished() throws IOException {
+		writeSummary(summary);
+		char[] buffer = new char[8192];
+		for (Iterator<Map.Entry<String, Spool>> i = spools.entrySet().iterator(); i.hasNext();) {
+			Map.Entry<String, Spool> entry = i.next();
+			writeGroupStart(entry.getKey());
+			Spool spool = entry.getValue();
+			spool.writer.close();
+			Reader in = new InputStreamReader(new FileInputStream(spool.file), SPOOL_CHARSET);
+			try {
+				int n;
+				while ((n = in.read(buffer)) >= 0) {
+					report.write(buffer, 0, n);
+				}
+			} finally {
+				in.close();
+			}
+			spool.delete();
+			i.remove();
+			writeGroupEnd(entry.getKey());
+		}
+		writeFooter();
+		report.flush();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	public void close() throws IOException {
+		// Remove the spool files of a report that was not finished.
+		for (Spool spool : spools.values()) {
+			spool.writer.close();
+			spool.delete();
+		}
+		spools.clear();
+		report.close();
+	}
+
+	/**
+	 * Write the head of the report.
+	 * @param name The display name of the user the report is for.
+	 * @param count The expected number of investigations or -1 if unknown.
+	 * @throws IOException
+	 */
+	protected abstract void writeHeader(String name, int count) throws IOException;
+
+	/**
+	 * Write the start of a status group.
+	 * @param status The status of the investigations in the group.
+	 * @throws IOException
+	 */
+	protected abstract void writeGroupStart(String status) throws IOException;
+
+	/**
+	 * Write a single investigation including its witness and statement detail.
+	 * @param investigation The Investigation instance to write.
+	 * @throws IOException
+	 */
+	protected abstract void writeInvestigation(Investigation investigation) throws IOException;
+
+	/**
+	 * Write the end of a status group.
+	 * @param status The status of the investigations in the group.
+	 * @throws IOException
+	 */
+	protected abstract void writeGroupEnd(String status) throws IOException;
+
+	/**
+	 * Write the summary section of the report.
+	 * @param summary The summary totals of all investigations written.
+	 * @throws IOException
+	 */
+	protected abstract void writeSummary(ReportSummary summary) throws IOException;
+
+	/**
+	 * Write the tail of the report.
+	 * @throws IOException
+	 */
+	protected abstract void writeFooter() throws IOException;
+
+	/**
+	 * Write the provided value or an empty string when the value is null.
+	 * @param value The value to write.
+	 * @throws IOException
+	 */
+	protected void write(Object value) throws IOException {
+		if (value != null) {
+			out.write(value.toString());
+		}
+	}
+
+	/*
+	 * Spool is the temporary file the investigations of a status group are
+	 * written to until the report is finished.
+	 */
+	private static final class Spool {
+
+		final File file;
+		final Writer writer;
+
+		Spool(File file) throws IOException {
+			this.file = file;
+			this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), SPOOL_CHARSET));
+		}
+
+		void delete() {
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+
+	}
+
+}
@@ -6,8 +6,8 @@ package com.darkside.judge;
 import java.io.*;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
-import org.apache.commons.lang3.*;
 import org.joda.time.*;
 import com.gargoylesoftware.htmlunit.*;
 import com.gargoylesoftware.htmlunit.html.*;
@@ -31,15 +31,95 @@ public class Reporter {
 	private static final String RESOURCE_CREDS_PROPERTIES = "com/darkside/judge/login_creds.properties";
 	/* The investigation page property file resource identifier */
 	private static final String RESOURCE_CASES_PROPERTIES = "com/darkside/judge/investigations_page.properties";
+	/* The HTTP transport property file resource identifier */
+	private static final String RESOURCE_TRANSPORT_PROPERTIES = "com/darkside/judge/transport.properties";
+	/* The number of times the investigation list is opened when it fails to reset */
+	private static final int MAX_LIST_RELOADS = 3;
+	/* The number of investigations pattern of the results text; 'Displaying 1 - 100 of 230.' */
+	private static final Pattern RESULTS_PATTERN = Pattern.compile("^.*?(\\d+)\\.$");
+	/* The characters removed from cell content */
+	private static final String CELL_REMOVED_CHARS = "%\u00a0\u2007\u202f";
 	
 	/* The HtmlUnit WebClient instance used by this instance to load and scrape pages */
 	private WebClient client;
+	/* The pooled transport installed on the WebClient instance, if any */
+	private final PooledWebConnection connection;
+	/* The listeners notified as each investigation is loaded */
+	private final List<InvestigationListener> listeners = new ArrayList<InvestigationListener>();
+	/* The number of times an investigation that failed to load is retried */
+	private int maxRetries = 1;
+	/* The arena keeping the statement text compressed off-heap, if any */
+	private StatementTextArena statementArena;
+	/* The number of sessions the investigation list pages are loaded with */
+	private int listSessions = 1;
+	
+	/* The login page properties */
+	private final LoginPageProperties loginProperties;
+	/* The investigations list page properties */
+	private final InvestigationsPageProperties listProperties;
+	/* The investigation 'view' page properties */
+	private final InvestigationPageProperties caseProperties;
+	/* The transport properties or null for the default transport */
+	private final TransportProperties transportProperties;
 	
 	/**
-	 * Create a new Reporter instance.
+	 * Create a new Reporter instance for the Judge Center pages described by
+	 * the bundled page property resources.
+	 * @throws UncheckedIOException Failure exception when loading the bundled
+	 * 		property resources.
 	 */
 	public Reporter() {
+		this(new BundledProperties());
+	}
+	
+	/*
+	 * Create a new Reporter instance from the bundled property resources.
+	 */
+	private Reporter(BundledProperties bundled) {
+		this(bundled.loginProperties, bundled.listProperties, bundled.caseProperties, bundled.transportProperties);
+	}
+	
+	/**
+	 * Create a new Reporter instance for the Judge Center pages described by
+	 * the provided page properties using the default HtmlUnit transport.
+	 * @param loginProperties The login page properties.
+	 * @param listProperties The investigations list page properties.
+	 * @param caseProperties The investigation 'view' page properties.
+	 */
+	public Reporter(LoginPageProperties loginProperties, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties) {
+		this(loginProperties, listProperties, caseProperties, null);
+	}
+	
+	/**
+	 * Create a new Reporter instance for the Judge Center pages described by
+	 * the provided page properties using a PooledWebConnection transport.
+	 * @param loginProperties The login page properties.
+	 * @param listProperties The investigations list page properties.
+	 * @param caseProperties The investigation 'view' page properties.
+	 * @param transportProperties The transport properties or null to use the
+	 * 		default HtmlUnit transport.
+	 */
+	public Reporter(LoginPageProperties loginProperties, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties, TransportProperties transportProperties) {
+		this.loginProperties = loginProperties;
+		this.listProperties = listProperties;
+		this.caseProperties = caseProperties;
+		this.transportProperties = transportProperties;
 		client = new WebClient(BrowserVersion.INTERNET_EXPLORER_11);
+		if (transportProperties != null) {
+			connection = new PooledWebConnection(client, transportProperties);
+			client.setWebConnection(connection);
+		} else {
+			connection = null;
+		}
+	}
+	
+	/**
+	 * Get the statistics of the pooled transport.
+	 * @return The TransportStatistics instance or null when the default
+	 * 		HtmlUnit transport is used.
+	 */
+	public TransportStatistics getTransportStatistics() {
+		return connection != null ? connection.getStatistics() : null;
 	}
 	
 	/* (non-Javadoc)
@@ -48,10 +128,72 @@ public class Reporter {
 	@Override
 	protected void finalize() {
 		// Close the WebClient instance on finalize
+		closeClient();
+	}
+	
+	/*
+	 * closeClient closes the WebClient instance and shuts down the pooled
+	 * transport, if any.
+	 */
+	private void closeClient() {
 		if (client != null) {
 			client.closeAllWindows();
 			client = null;
 		}
+		if (connection != null) {
+			connection.shutdown();
+		}
+	}
+	
+	/**
+	 * Register a listener to be notified as each investigation is loaded.
+	 * @param listener The InvestigationListener instance to register.
+	 */
+	public void addInvestigationListener(InvestigationListener listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Remove a previously registered investigation listener.
+	 * @param listener The InvestigationListener instance to remove.
+	 */
+	public void removeInvestigationListener(InvestigationListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Set the number of times an investigation that failed to load is retried
+	 * after all of the other investigations have been loaded.
+	 * @param maxRetries The number of retries; zero disables retrying.
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+	
+	/**
+	 * Set the arena the witness statement text of the loaded investigations
+	 * is kept in; the text is compressed off-heap and decompressed when the
+	 * statement is read.
+	 * @param statementArena The StatementTextArena instance or null to keep
+	 * 		the statement text on the heap.
+	 */
+	public void setStatementArena(StatementTextArena statementArena) {
+		this.statementArena = statementArena;
+	}
+	
+	/**
+	 * Set the number of sessions the investigation list pages are loaded
+	 * with.  With more than one session the number of list pages is computed
+	 * from the number of investigations and the pages after the first are
+	 * loaded concurrently by additional logins, each selecting its pages by
+	 * page index postback, before any investigation 'view' tab is loaded.
+	 * Additional sessions are only used when the page index postback is
+	 * configured by the list page properties.
+	 * @param listSessions The number of sessions; one loads the list pages
+	 * 		one at a time while the investigations are loaded.
+	 */
+	public void setListSessions(int listSessions) {
+		this.listSessions = listSessions;
 	}
 	
 	/**
@@ -67,13 +209,31 @@ public class Reporter {
 	 * @throws IOException Failure exception when making web-requests.
 	 */
 	public InvestigationsSet loadInvestigations(String userId, char[] passwd) throws IOException {
-		if (doLogin(new LoginPageProperties(RESOURCE_LOGIN_PROPERTIES), userId, passwd)) {
+		return loadInvestigations(userId, passwd, new InvestigationQuery());
+	}
+	
+	/**
+	 * loadInvestigations is responsible for taking the provided credentials
+	 * logging into the Judge Center then loading the investigations that match
+	 * the provided query.  The query is evaluated against the investigation
+	 * list before any investigation 'view' tab is loaded.
+	 * @param userId The users DCI number.
+	 * @param passwd The users password.
+	 * @param query The InvestigationQuery selecting the investigations to load.
+	 * @return An InvestigationSet containing the matching investigations or
+	 * 		null if the credentials were invalid.
+	 * @throws IOException Failure exception when making web-requests.
+	 */
+	public InvestigationsSet loadInvestigations(String userId, char[] passwd, InvestigationQuery query) throws IOException {
+		if (doLogin(loginProperties, userId, passwd)) {
 			log.debug("Login successful");
 			
-			InvestigationsSet set = loadInvestigations(new InvestigationsPageProperties(RESOURCE_CASES_PROPERTIES));
+			InvestigationsSet set = loadInvestigations(listProperties, query, userId, passwd);
 			
-			for (Investigation investigation : set) {
-				log.debug("Investigation: " + investigation);
+			if (log.isDebugEnabled()) {
+				for (Investigation investigation : set) {
+					log.debug("Investigation: " + investigation);
+				}
 			}
 			
 			return set;
@@ -114,12 +274,12 @@ public class Reporter {
 	/*
 	 * loadInvestigations loads the authenticated users investigations into an
 	 * InvestigationSet instance.  The InvestigationSet instance contains the
-	 * name of the user logged in and a set of the users investigations.
+	 * name of the user logged in and a set of the users investigations.  The
+	 * credentials are used to log in the additional list sessions.
 	 */
-	private InvestigationsSet loadInvestigations(InvestigationsPageProperties properties) throws IOException {
+	private InvestigationsSet loadInvestigations(InvestigationsPageProperties properties, InvestigationQuery query, String userId, char[] passwd) throws IOException {
 		// Load the investigations list page.
-		HtmlPage page = client.getPage(properties.getPageUri());
-		page = page.getAnchorByText(properties.getLinkTab()).click();
+		HtmlPage page = openInvestigationsList(properties);
 
 		// Check the current selected tab (should be '3' the 'select' tab).
 		String value = page.getFormByName(properties.getFormName()).getInputByName(properties.getFormInputState()).getValueAttribute();
@@ -132,10 +292,9 @@ public class Reporter {
 		
 		// Parse the number of investigations from the information near the number to show drop down control.
 		int numInvestigatons = -1;
-		for (HtmlDivision div : HtmlUnitUtilities.<HtmlDivision>getElementsByClass(page, "div", "results")) {
+		for (HtmlDivision div : HtmlUnitUtilities.<HtmlDivision>getElementsByClass(page, "div", properties.getNumInvestigationsDivClass())) {
 			String text = div.getTextContent().trim();
-			Pattern pattern = Pattern.compile("^.*(\\d+)\\.$");
-			Matcher matcher = pattern.matcher(text);
+			Matcher matcher = RESULTS_PATTERN.matcher(text);
 			if (matcher.matches()) {
     			String match = matcher.group(1);
     			try {
@@ -155,6 +314,79 @@ public class Reporter {
 		}
 		 */
 
+		page = reloadInvestigationsList(page, properties);
+		
+		// Load all investigations from all pages in the list.  Rows that fail
+		// to load are recorded and retried once all of the pages are loaded.
+		List<Investigation> list = new ArrayList<Investigation>();
+		List<InvestigationError> errors = new ArrayList<InvestigationError>();
+		int pageSize = Integer.parseInt(properties.getPageSize());
+		int numPages = (numInvestigatons + pageSize - 1) / pageSize;
+		if (listSessions > 1 && numPages > 1 && properties.getLinkPageTarget() != null) {
+			loadInvestigationsFromAllPages(list, errors, page, name, numPages, query, properties, userId, passwd);
+		} else {
+			for (InvestigationListener listener : listeners) {
+				listener.investigationsStarted(name, numInvestigatons);
+			}
+			
+			HtmlPage nextPage = page;
+			log.debug("Loading page 1");
+			boolean more = loadInvestigationsFromCurrentPage(list, errors, nextPage, 1, query, properties, caseProperties); // , monitor);
+			int n = 2;
+			// Click the next page link and load the investigations from the next page.
+			while (more) {
+				try {
+					nextPage = nextListPage(nextPage, n, properties);
+				} catch (RuntimeException | IOException e) {
+					// Queue the remaining pages for retry rather than abandoning the investigations already loaded.
+					for (int pageNumber = n; pageNumber <= Math.max(n, numPages); ++pageNumber) {
+						InvestigationError error = new InvestigationError(-1, pageNumber, -1);
+						error.failed(e);
+						errors.add(error);
+					}
+					log.warn("Failed to load list page " + n + "; the remaining pages are queued for retry", e);
+					break;
+				}
+				if (nextPage == null) {
+					break;
+				}
+				log.debug("Loading page " + n);
+				more = loadInvestigationsFromCurrentPage(list, errors, nextPage, n++, query, properties, caseProperties); // , monitor);
+			}
+			if (!more) {
+				log.debug("Stopped paging at page " + (n - 1) + "; the remaining investigations are outside the query range");
+			}
+		}
+		
+		retryInvestigations(list, errors, query, properties, caseProperties);
+		
+		for (InvestigationListener listener : listeners) {
+			listener.investigationsFinished();
+		}
+		
+		// LOGGER.debug ("Resulting Investigation Page:\n" + page.asText ());
+		log.debug("Found " + list.size() + " investigations");
+		if (!errors.isEmpty()) {
+			log.warn("Failed to load " + errors.size() + " investigations: " + errors);
+		}
+		return new InvestigationsSet(name, list, errors);
+	}
+	
+	/*
+	 * openInvestigationsList loads the investigations page with a fresh request
+	 * and selects the 'select' tab that contains the investigation list.
+	 */
+	private HtmlPage openInvestigationsList(InvestigationsPageProperties properties) throws IOException {
+		HtmlPage page = client.getPage(properties.getPageUri());
+		return page.getAnchorByText(properties.getLinkTab()).click();
+	}
+	
+	/*
+	 * resetInvestigationsList sets the page size of the investigation list and
+	 * resets the view state so that rows can be selected by postback.  The
+	 * view state is reset by selecting the specified row of the first page.
+	 */
+	private HtmlPage resetInvestigationsList(HtmlPage page, int row, InvestigationsPageProperties properties) throws IOException {
 		// Select the number to show drop down and set it to the maximum value.
 		HtmlSelect select = page.getElementByName(properties.getInputPageSize());
 		page = select.setSelectedAttribute(properties.getPageSize(), true);
@@ -163,39 +395,272 @@ public class Reporter {
 		// We do this because of the way the Judge Center processes state changes through JavaScript.
 		HtmlTable table = page.getHtmlElementById(properties.getTable());
 		List<HtmlTableRow> rows = table.getRows();
-		page = rows.get(1).click();
-		page = page.getAnchorByText(properties.getLinkTab()).click();
+		page = rows.get(Math.min(row, rows.size() - 1)).click();
+		return page.getAnchorByText(properties.getLinkTab()).click();
+	}
+	
+	/*
+	 * reloadInvestigationsList resets the provided investigation list page,
+	 * or a freshly opened one when null.  Resetting the list selects a row so
+	 * it may fail in the same way as loading an investigation; the list is
+	 * then opened again, selecting the next row in case the failure is
+	 * particular to the investigation, up to MAX_LIST_RELOADS times in total.
+	 */
+	private HtmlPage reloadInvestigationsList(HtmlPage page, InvestigationsPageProperties properties) throws IOException {
+		for (int reload = 1; ; ++reload) {
+			try {
+				return resetInvestigationsList(page != null ? page : openInvestigationsList(properties), reload, properties);
+			} catch (RuntimeException | IOException e) {
+				if (reload >= MAX_LIST_RELOADS) {
+					throw e;
+				}
+				log.warn("Failed to reset the investigation list; reloading: " + e);
+				log.debug("Investigation list reset failure", e);
+				page = null;
+			}
+		}
+	}
+	
+	/*
+	 * nextListPage clicks the next page link of the provided list page to load
+	 * list page pageNumber and returns null after the last page.  When the
+	 * link cannot be followed, as when a failed investigation postback has
+	 * left the window on a server error page, the list is opened again and
+	 * paged forward to the page instead.
+	 */
+	private HtmlPage nextListPage(HtmlPage page, int pageNumber, InvestigationsPageProperties properties) throws IOException {
+		try {
+			return HtmlUnitUtilities.findAndClickAnchor(page, properties.getLinkNextPage());
+		} catch (RuntimeException | IOException e) {
+			log.warn("Failed to follow the next page link to page " + pageNumber + "; reopening the investigation list: " + e);
+			log.debug("Next page link failure", e);
+			return reopenListPage(pageNumber, properties);
+		}
+	}
+	
+	/*
+	 * reopenListPage opens the investigation list again then moves to list
+	 * page pageNumber, by its page index when the page link is configured or
+	 * else by following the next page link.  Returns null when the list has
+	 * fewer pages.
+	 */
+	private HtmlPage reopenListPage(int pageNumber, InvestigationsPageProperties properties) throws IOException {
+		HtmlPage page = reloadInvestigationsList(null, properties);
+		if (pageNumber > 1 && properties.getLinkPageTarget() != null) {
+			return openListPage(page, pageNumber, properties);
+		}
+		for (int n = 1; page != null && n < pageNumber; ++n) {
+			page = HtmlUnitUtilities.findAndClickAnchor(page, properties.getLinkNextPage());
+		}
+		return page;
+	}
+	
+	/*
+	 * loadInvestigationsFromAllPages loads the rows of every list page before
+	 * loading any investigation 'view' tab.  The first page is already loaded;
+	 * the remaining pages are loaded concurrently by the additional list
+	 * sessions, and any page another session failed to load is then loaded by
+	 * this session.  The listeners are then told the exact number of matching
+	 * investigations, or -1 when a page could not be loaded, and each page
+	 * with matching rows is selected directly by its page index to load the
+	 * investigations; pages without any are not requested again and the page
+	 * already shown is not requested twice.  A page whose rows could not be
+	 * loaded is loaded as if it had matching rows.
+	 */
+	private void loadInvestigationsFromAllPages(List<Investigation> investigationList, List<InvestigationError> errors, HtmlPage page, String name, int numPages, InvestigationQuery query, InvestigationsPageProperties properties, String userId, char[] passwd) throws IOException {
+		long start = System.nanoTime();
+		Map<Integer, List<Investigation>> pageRows = loadListPages(numPages, properties, userId, passwd);
+		pageRows.put(1, loadListRows(page, properties));
+		int currentPage = 1;
+		for (int pageNumber = 2; pageNumber <= numPages; ++pageNumber) {
+			if (!pageRows.containsKey(pageNumber)) {
+				try {
+					page = openListPage(page, pageNumber, properties);
+					currentPage = pageNumber;
+					pageRows.put(pageNumber, loadListRows(page, properties));
+				} catch (RuntimeException | IOException e) {
+					log.warn("Failed to load list page " + pageNumber + ": " + e);
+					log.debug("List page " + pageNumber + " failure", e);
+				}
+			}
+		}
+		log.info("Loaded " + pageRows.size() + " of " + numPages + " list pages in " + (System.nanoTime() - start) / 1000000 + "ms");
 		
-		// Load all investigations from all pages in the list.
-		List<Investigation> list = new ArrayList<Investigation>();
-		HtmlPage nextPage = page;
-		log.debug("Loading page 1");
-		InvestigationPageProperties caseProperties = new InvestigationPageProperties(RESOURCE_CASES_PROPERTIES);
-		loadInvestigationsFromCurrentPage(list, nextPage, properties, caseProperties); // , monitor);
-		int n = 2;
-		// Click the next page link and load the investigations from the next page.
-		while ((nextPage = HtmlUnitUtilities.findAndClickAnchor(nextPage, properties.getLinkNextPage())) != null) {
-			log.debug("Loading page " + n++);
-			loadInvestigationsFromCurrentPage(list, nextPage, properties, caseProperties); // , monitor);
+		// Find the pages with matching rows and stop at the first row past the query range.
+		int expected = 0;
+		boolean counted = true;
+		int lastPage = numPages;
+		Set<Integer> pages = new TreeSet<Integer>();
+		for (int pageNumber = 1; pageNumber <= lastPage; ++pageNumber) {
+			List<Investigation> rows = pageRows.get(pageNumber);
+			if (rows == null) {
+				pages.add(pageNumber);
+				counted = false;
+				continue;
+			}
+			for (Investigation investigation : rows) {
+				if (query.matches(investigation)) {
+					++expected;
+					pages.add(pageNumber);
+				} else if (isPastRange(query, investigation, properties)) {
+					lastPage = pageNumber;
+					break;
+				}
+			}
 		}
 		
-		// LOGGER.debug ("Resulting Investigation Page:\n" + page.asText ());
-		log.debug("Found " + list.size() + " investigations");
-		return new InvestigationsSet(name, list);
+		for (InvestigationListener listener : listeners) {
+			listener.investigationsStarted(name, counted ? expected : -1);
+		}
+		
+		for (int pageNumber : pages) {
+			if (pageNumber > lastPage) {
+				break;
+			}
+			log.debug("Loading page " + pageNumber);
+			try {
+				if (pageNumber != currentPage) {
+					page = openListPage(page, pageNumber, properties);
+					currentPage = pageNumber;
+				}
+			} catch (RuntimeException | IOException e) {
+				// Queue the matching rows of the page for retry by their ids, or the whole page when they are unknown.
+				List<Investigation> rows = pageRows.get(pageNumber);
+				if (rows == null) {
+					InvestigationError error = new InvestigationError(-1, pageNumber, -1);
+					error.failed(e);
+					errors.add(error);
+				}
+				for (Investigation investigation : rows != null ? rows : Collections.<Investigation>emptyList()) {
+					if (query.matches(investigation)) {
+						InvestigationError error = new InvestigationError(investigation.getId(), pageNumber, -1);
+						error.failed(e);
+						errors.add(error);
+					}
+				}
+				log.warn("Failed to load list page " + pageNumber + "; its investigations are queued for retry", e);
+				continue;
+			}
+			if (!loadInvestigationsFromCurrentPage(investigationList, errors, page, pageNumber, query, properties, caseProperties)) {
+				break;
+			}
+		}
+	}
+	
+	/*
+	 * loadListPages loads the rows of list pages 2 to numPages using up to
+	 * listSessions - 1 additional sessions, each logged in with the provided
+	 * credentials, resetting its list as the main session does and selecting
+	 * its pages by page index postback.  Pages that fail to load are left out
+	 * of the returned map.
+	 */
+	private Map<Integer, List<Investigation>> loadListPages(final int numPages, final InvestigationsPageProperties properties, final String userId, final char[] passwd) {
+		final Map<Integer, List<Investigation>> pageRows = new ConcurrentHashMap<Integer, List<Investigation>>();
+		final int sessions = Math.min(listSessions - 1, numPages - 1);
+		ExecutorService executor = Executors.newFixedThreadPool(sessions);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int s = 0; s < sessions; ++s) {
+				final int firstPage = 2 + s;
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() throws IOException {
+						Reporter session = new Reporter(loginProperties, listProperties, caseProperties, transportProperties);
+						try {
+							if (!session.doLogin(loginProperties, userId, passwd)) {
+								throw new IOException("List session login failed");
+							}
+							// Reset the list the same way as the main session so page postbacks are accepted.
+							HtmlPage page = session.reloadInvestigationsList(null, properties);
+							for (int pageNumber = firstPage; pageNumber <= numPages; pageNumber += sessions) {
+								page = session.openListPage(page, pageNumber, properties);
+								pageRows.put(pageNumber, session.loadListRows(page, properties));
+							}
+						} finally {
+							session.closeClient();
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					log.warn("List session failed; its remaining pages are loaded by the main session", e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		return pageRows;
+	}
+	
+	/*
+	 * loadListRows loads the information of every row on the current list
+	 * page without loading any investigation 'view' tab.  Rows that cannot be
+	 * read are left out.
+	 */
+	private List<Investigation> loadListRows(HtmlPage page, InvestigationsPageProperties properties) {
+		HtmlTable table = page.getHtmlElementById(properties.getTable());
+		List<HtmlTableRow> rows = table.getRows();
+		List<Investigation> investigations = new ArrayList<Investigation>(rows.size());
+		for (int i = 1; i < rows.size(); ++i) {
+			HtmlTableRow row = rows.get(i);
+			if (row.getAttribute("class").equals(properties.getTableRowClass())) {
+				try {
+					investigations.add(loadInvestigationRow(row, properties));
+				} catch (RuntimeException e) {
+					log.warn("Failed to read list row " + i, e);
+				}
+			}
+		}
+		return investigations;
 	}
 	
 	/*
-	 * loadInvestigationsFromCurrentPage loads the investigations from the
-	 * current listing page pulling all of the pertinent information from the
-	 * listing table then selecting the investigation to load its 'view' tab
-	 * and then loading the information for that investigation from the 'view'
-	 * tab as well.
+	 * openListPage selects the list page by its (one based) page index.
 	 */
-	private void loadInvestigationsFromCurrentPage(List<Investigation> investigationList, HtmlPage page, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties) throws IOException { //, Monitor monitor) throws IOException {
+	private HtmlPage openListPage(HtmlPage page, int pageNumber, InvestigationsPageProperties properties) throws IOException {
+		String argument = MessageFormat.format(properties.getLinkPageArgument(), pageNumber);
+		return postBack(page, properties, properties.getLinkPageTarget(), argument);
+	}
+	
+	/*
+	 * postBack submits the investigations page form with the provided event
+	 * target and argument in the same way as the page __doPostBack script.
+	 */
+	private HtmlPage postBack(HtmlPage page, InvestigationsPageProperties properties, String target, String argument) throws IOException {
+		HtmlForm form = page.getFormByName(properties.getFormName());
+		// Set the form values for target and argument.
+		form.getInputByName(properties.getFormInputTarget()).setValueAttribute(target);
+		form.getInputByName(properties.getFormInputArgument()).setValueAttribute(argument);
+		if (log.isDebugEnabled()) {
+			log.debug("Target: " + target + ", Argument: " + argument);
+		}
+		// Inject a submit button into the form so that it can be submitted.
+		HtmlElement button = (HtmlElement) page.createElement("button");
+		button.setAttribute("type", "submit");
+		form.appendChild(button);
+		return button.click();
+	}
+	
+	/*
+	 * loadInvestigationsFromCurrentPage loads the investigations matching the
+	 * query from the current listing page.  An investigation that fails to
+	 * load does not stop the remaining rows from loading; the failure is added
+	 * to the errors list so that the row can be retried later.  Returns false
+	 * when the list is sorted by entered date and has moved past the query
+	 * range so that no further pages need to be loaded.
+	 */
+	private boolean loadInvestigationsFromCurrentPage(List<Investigation> investigationList, List<InvestigationError> errors, HtmlPage page, int pageNumber, InvestigationQuery query, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties) throws IOException { //, Monitor monitor) throws IOException {
 		// Get the investigation list table.
 		HtmlTable table = page.getHtmlElementById(listProperties.getTable());
 		List<HtmlTableRow> rows = table.getRows();
-		log.debug("Num Table Rows: " + rows.size());
+		if (log.isDebugEnabled()) {
+			log.debug("Num Table Rows: " + rows.size());
+		}
 
 		// Loop through each row in the table skipping the header row (row 0).
 		for (int i = 1; i < rows.size(); ++i) {
@@ -203,162 +668,418 @@ public class Reporter {
 
 			// Skip any row without the appropriate class identifier.
 			if (!row.getAttribute("class").equals(listProperties.getTableRowClass())) {
-				log.debug("Skipping row: " + i);
+				if (log.isDebugEnabled()) {
+					log.debug("Skipping row: " + i);
+				}
 				continue;
 			}
 
-			// Create an Investigation instance then load the investigation
-			// information into that instance from the HTML table row.
-			Investigation investigation = new Investigation();
-			
-			investigation.setId(cellAsNumber(row.getCell(0).getTextContent()));
-			investigation.setEnteredBy(stripCellContent(row.getCell(3).getTextContent()));
-			investigation.setSubject(stripCellContent(row.getCell(4).getTextContent()));
-			investigation.setEventRel(stripCellContent(row.getCell(5).getTextContent()));
-			investigation.setEventType(stripCellContent(row.getCell(6).getTextContent()));
-			investigation.setCity(stripCellContent(row.getCell(7).getTextContent()));
-			investigation.setCountry(stripCellContent(row.getCell(8).getTextContent()));
-			// investigation.setInfraction(stripCellContent(row.getCell(9).getTextContent()));
-			investigation.getInfractions().add(stripCellContent(row.getCell(9).getTextContent()));
-			investigation.setStatus(stripCellContent(row.getCell(10).getTextContent()));
-			investigation.setResolution(stripCellContent(row.getCell(11).getTextContent()));
-			
-			// Recreate the selection script for clicking on the table row to
-			// load the current investigations 'view' tab then load the
-			// information from that tab for this investigation instance.
-			HtmlForm form = page.getFormByName(listProperties.getFormName());
-			// Set the form values for target and argument.
-			String target = MessageFormat.format(listProperties.getFormInputTargetValue(), i + 2);
-			form.getInputByName(listProperties.getFormInputTarget()).setValueAttribute(target);
-			String argument = listProperties.getFormInputArgumentValue();
-			form.getInputByName(listProperties.getFormInputArgument()).setValueAttribute(argument);
-			log.debug("Target: " + target + ", Argument: " + argument);
-			// Inject a submit button into the form so that it can be submitted.
-			HtmlElement button = (HtmlElement) page.createElement("button");
-			button.setAttribute("type", "submit");
-			form.appendChild(button);
-			HtmlPage casePage = button.click();
-			
-			// This does not work as the first investigation is continually
-			// loaded upon subsequent requests (probably due to the way the
-			// JavaScript state is managed in the Judge Center).
-			// HtmlPage casePage = row.click();
-			
-			// Select the 'view' tab.
-			String value = casePage.getFormByName(listProperties.getFormName()).getInputByName(listProperties.getFormInputState()).getValueAttribute();
-			log.debug("Page Selected Tab: " + value);
-			
-			// Load the summary information table at the head of the page.
-			HtmlTable summaryTable = casePage.getHtmlElementById(caseProperties.getSummaryTable());
-			List<HtmlTableRow> summaryRows = summaryTable.getRows();
-			
-			long casePageId = cellAsNumber(summaryRows.get(0).getCell(0).getTextContent());
-			if (investigation.getId() != casePageId) {
-				throw new IllegalStateException(investigation.getId() + " != " + casePageId);
+			Investigation investigation;
+			try {
+				// Check the query against the list row before loading the 'view' tab.
+				investigation = loadInvestigationRow(row, listProperties);
+				if (!query.matches(investigation)) {
+					if (isPastRange(query, investigation, listProperties)) {
+						return false;
+					}
+					continue;
+				}
+				loadInvestigationView(investigation, page, i, listProperties, caseProperties);
+				// The entered date is only known once the 'view' tab is loaded when the list does not show it.
+				if (!query.matches(investigation)) {
+					if (isPastRange(query, investigation, listProperties)) {
+						return false;
+					}
+					continue;
+				}
+			} catch (RuntimeException | IOException e) {
+				InvestigationError error = new InvestigationError(rowId(row), pageNumber, i);
+				error.failed(e);
+				errors.add(error);
+				// The failure is expected to be recoverable so the trace is only logged at debug.
+				log.warn("Failed to load investigation " + error.getId() + " (page " + pageNumber + ", row " + i + "); queued for retry: " + e);
+				log.debug("Investigation " + error.getId() + " load failure", e);
+				continue;
 			}
 			
-			investigation.setIncidentDate(cellAsDate(summaryRows.get(1).getCell(0).getTextContent(), listProperties));
-			investigation.setEnteredDate(cellAsDate(summaryRows.get(2).getCell(0).getTextContent(), listProperties));
-			
-			// Load the event sanctioning number from the 'Key: Value' row content.
-			String sacntionNo = stripCellContent(summaryRows.get(3).getCell(0).getTextContent()); {
-    			Pattern pattern = Pattern.compile(caseProperties.getTableKeyValuePattern());
-    			Matcher matcher = pattern.matcher(sacntionNo);
-    			matcher.find();
-    			investigation.setSanctioningNo(matcher.group(1));
+			// Add the investigation to the list and notify the listeners.
+			investigationList.add(investigation);
+			for (InvestigationListener listener : listeners) {
+				listener.investigationLoaded(investigation);
 			}
 			
-			investigation.setEnteredDciNo(cellAsNumber(summaryRows.get(5).getCell(0).getTextContent()));
-			investigation.setSubjectDciNo(cellAsNumber(summaryRows.get(7).getCell(0).getTextContent()));
+			/*
+			if (monitor != null) {
+    			monitor.setProgress(monitor.getProgress() + 1);
+			}
+			 */
 			
-			// Load the subject role from the 'Key: Value' row content.
-			String role = stripCellContent(summaryRows.get(8).getCell(0).getTextContent()); {
-    			Pattern pattern = Pattern.compile(caseProperties.getTableKeyValuePattern());
-    			Matcher matcher = pattern.matcher(role);
-    			matcher.find();
-    			investigation.setSubjectRole(matcher.group(1));
+			if (log.isDebugEnabled()) {
+				log.debug("Added Investigation: " + investigation);
 			}
+		}
+		return true;
+	}
+	
+	/*
+	 * retryInvestigations retries the investigations that failed to load.
+	 * Each attempt starts from a fresh load of the investigation list and
+	 * pages forward to each page with failed rows; rows are matched by
+	 * investigation id in case the list has shifted since the first attempt.
+	 * Investigations that load are removed from the errors list; those that
+	 * still fail after the last attempt remain in the errors list.  An error
+	 * for a whole page (row -1) is replaced by an error for each of its rows
+	 * once the page is loaded.
+	 */
+	private void retryInvestigations(List<Investigation> investigationList, List<InvestigationError> errors, InvestigationQuery query, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties) throws IOException {
+		for (int attempt = 1; attempt <= maxRetries && !errors.isEmpty(); ++attempt) {
+			log.info("Retrying " + errors.size() + " investigations (attempt " + attempt + " of " + maxRetries + ")");
 			
-			// Load the witness table in the middle of the page.
-			HtmlTable witnessTable = casePage.getHtmlElementById(caseProperties.getWitnessTable());
-			List<HtmlTableRow> witnessRows = witnessTable.getRows();
-			for (int j = 1; j < witnessRows.size(); ++j) {
-				HtmlTableRow witnessRow = witnessRows.get(j);
-				Witness witness = new Witness();
-				witness.setName(stripCellContent(witnessRow.getCell(0).getTextContent()));
-				witness.setDciNo(cellAsNumber(witnessRow.getCell(1).getTextContent()));
-				witness.setRole(stripCellContent(witnessRow.getCell(2).getTextContent()));
-				investigation.getWitnesses().add(witness);
+			int lastPage = 0;
+			for (InvestigationError error : errors) {
+				lastPage = Math.max(lastPage, error.getPage());
 			}
 			
-			// Load the infraction table in the middle of the page.
-			HtmlTable infractionTable = casePage.getHtmlElementById(caseProperties.getInfractionTable());
-			List<HtmlTableRow> infractionRows = infractionTable.getRows();
-			for (int j = 1; j < infractionRows.size(); ++j) {
-				HtmlTableRow infractionRow = infractionRows.get(j);
-				
-				investigation.getInfractions().add(stripCellContent(infractionRow.getCell(0).getTextContent()));
+			HtmlPage page;
+			try {
+				page = reloadInvestigationsList(null, listProperties);
+			} catch (RuntimeException | IOException e) {
+				log.warn("Failed to reload the investigation list for retry", e);
+				continue;
 			}
 			
-			// Load the statement table at the bottom of the page.
-			HtmlTable statementTable = casePage.getHtmlElementById(caseProperties.getStatementTable());
-			List<HtmlTableRow> statementRows = statementTable.getRows();
-			for (int j = 1; j < statementRows.size(); ++j) {
-				HtmlTableRow statementRow = statementRows.get(j);
-				Statement statement = new Statement();
+			for (int pageNumber = 1; page != null && pageNumber <= lastPage; ++pageNumber) {
+				HtmlTable table = page.getHtmlElementById(listProperties.getTable());
+				List<HtmlTableRow> rows = table.getRows();
+				expandPageErrors(errors, rows, pageNumber, listProperties);
 				
-				// Strip and process the second cell containing the witness name
-				// entered date and entered by information.
-				String statementInfo = stripCellContent(statementRow.getCell(1).getTextContent());
-				log.debug("Statement Info: " + statementInfo);
-				String[] lines = statementInfo.split("\\s*\\r?\\n\\s*");
-				statement.setWitnessName(stripCellContent(lines[0]));
-				for (Witness w : investigation.getWitnesses()) {
-					if (statement.getWitnessName().equals(w.getName())) {
-						statement.setWitnessDciNo(w.getDciNo());
-						statement.setWitness(w);
-						w.setStatement(statement);
-						break;
+				for (Iterator<InvestigationError> iterator = errors.iterator(); iterator.hasNext(); ) {
+					InvestigationError error = iterator.next();
+					if (error.getPage() != pageNumber) {
+						continue;
+					}
+					
+					int i = findRow(rows, error, listProperties);
+					try {
+						if (i < 0) {
+							throw new IllegalStateException("Investigation " + error.getId() + " is no longer on page " + pageNumber);
+						}
+						Investigation investigation = loadInvestigationRow(rows.get(i), listProperties);
+						if (!query.matches(investigation)) {
+							iterator.remove();
+							continue;
+						}
+						loadInvestigationView(investigation, page, i, listProperties, caseProperties);
+						iterator.remove();
+						if (!query.matches(investigation)) {
+							continue;
+						}
+						log.info("Loaded investigation " + investigation.getId() + " on retry");
+						investigationList.add(investigation);
+						for (InvestigationListener listener : listeners) {
+							listener.investigationLoaded(investigation);
+						}
+					} catch (RuntimeException | IOException e) {
+						error.failed(e);
+						log.warn("Retry of investigation " + error.getId() + " failed: " + e);
+						log.debug("Investigation " + error.getId() + " retry failure", e);
 					}
 				}
-				// Load the entered by information from the second line as 'Key: Value' row content.
-    			Pattern pattern = Pattern.compile(caseProperties.getTableKeyValuePattern());
-    			Matcher matcher = pattern.matcher(lines[2]);
-    			matcher.find();
-				statement.setEnteredBy(stripCellContent(matcher.group(1)));
-				// Load the entered date from the cell content.
-				statement.setEnteredDate(cellAsDate(statementInfo, listProperties));
-				
-				// Load the witness statement.
-				statement.setStatement(stripCellContent(statementRow.getCell(2).getTextContent()));
 				
-				investigation.getStatements().add(statement);
+				if (pageNumber < lastPage) {
+					try {
+						// Select the next page directly when possible; the next page link
+						// script posts back the current window page which may be an error page.
+						page = listProperties.getLinkPageTarget() != null
+								? openListPage(page, pageNumber + 1, listProperties)
+								: nextListPage(page, pageNumber + 1, listProperties);
+					} catch (RuntimeException | IOException e) {
+						log.warn("Failed to load page " + (pageNumber + 1) + " for retry", e);
+						page = null;
+					}
+				}
 			}
+		}
+	}
+	
+	/*
+	 * expandPageErrors replaces each error for the whole of the provided list
+	 * page with an error for each investigation row of that page.
+	 */
+	private void expandPageErrors(List<InvestigationError> errors, List<HtmlTableRow> rows, int pageNumber, InvestigationsPageProperties listProperties) {
+		for (ListIterator<InvestigationError> iterator = errors.listIterator(); iterator.hasNext(); ) {
+			InvestigationError pageError = iterator.next();
+			if (pageError.getPage() != pageNumber || !pageError.isPageError()) {
+				continue;
+			}
+			iterator.remove();
+			for (int i = 1; i < rows.size(); ++i) {
+				HtmlTableRow row = rows.get(i);
+				if (row.getAttribute("class").equals(listProperties.getTableRowClass())) {
+					InvestigationError error = new InvestigationError(rowId(row), pageNumber, i);
+					error.failed(pageError.getCause());
+					iterator.add(error);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * findRow finds the list table row of the failed investigation by its id
+	 * or by its original row index when the id could not be read.
+	 */
+	private int findRow(List<HtmlTableRow> rows, InvestigationError error, InvestigationsPageProperties listProperties) {
+		if (error.getId() < 0) {
+			return error.getRow() < rows.size() ? error.getRow() : -1;
+		}
+		for (int i = 1; i < rows.size(); ++i) {
+			HtmlTableRow row = rows.get(i);
+			if (row.getAttribute("class").equals(listProperties.getTableRowClass()) && rowId(row) == error.getId()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/*
+	 * rowId reads the investigation id from a list table row or returns -1
+	 * when the id cannot be read.
+	 */
+	private long rowId(HtmlTableRow row) {
+		try {
+			return cellAsNumber(row.getCell(0).getTextContent());
+		} catch (RuntimeException e) {
+			return -1;
+		}
+	}
+	
+	/*
+	 * isPastRange checks whether the investigation list is sorted by entered
+	 * date and has moved past the query range at the provided investigation.
+	 * A list without a configured sort order is never cut off.
+	 */
+	private boolean isPastRange(InvestigationQuery query, Investigation investigation, InvestigationsPageProperties listProperties) {
+		Boolean descending = listProperties.getTableEnteredDateDescending();
+		return descending != null && query.isPastRange(investigation.getEnteredDate(), descending);
+	}
+	
+	/*
+	 * loadInvestigationRow creates an Investigation instance then loads all of
+	 * the pertinent information from the listing table row into it.
+	 */
+	Investigation loadInvestigationRow(HtmlTableRow row, InvestigationsPageProperties listProperties) {
+		// Create an Investigation instance then load the investigation
+		// information into that instance from the HTML table row.
+		Investigation investigation = new Investigation();
+		
+		investigation.setId(cellAsNumber(row.getCell(0).getTextContent()));
+		investigation.setEnteredBy(stripCellContent(row.getCell(3).getTextContent()));
+		investigation.setSubject(stripCellContent(row.getCell(4).getTextContent()));
+		investigation.setEventRel(stripCellContent(row.getCell(5).getTextContent()));
+		investigation.setEventType(stripCellContent(row.getCell(6).getTextContent()));
+		investigation.setCity(stripCellContent(row.getCell(7).getTextContent()));
+		investigation.setCountry(stripCellContent(row.getCell(8).getTextContent()));
+		// investigation.setInfraction(stripCellContent(row.getCell(9).getTextContent()));
+		investigation.getInfractions().add(stripCellContent(row.getCell(9).getTextContent()));
+		investigation.setStatus(stripCellContent(row.getCell(10).getTextContent()));
+		investigation.setResolution(stripCellContent(row.getCell(11).getTextContent()));
+		// The entered date is only listed on some list layouts; it is always read from the 'view' tab.
+		if (listProperties.getTableEnteredDateColumn() >= 0) {
+			investigation.setEnteredDate(cellAsDate(row.getCell(listProperties.getTableEnteredDateColumn()).getTextContent(), listProperties));
+		}
+		
+		return investigation;
+	}
+	
+	/*
+	 * loadInvestigationView selects the investigation to load its 'view' tab
+	 * and then loads the information for that investigation from the 'view'
+	 * tab into the provided Investigation instance.
+	 */
+	private void loadInvestigationView(Investigation investigation, HtmlPage page, int i, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties) throws IOException {
+		// Recreate the selection script for clicking on the table row to
+		// load the current investigations 'view' tab then load the
+		// information from that tab for this investigation instance.
+		String target = MessageFormat.format(listProperties.getFormInputTargetValue(), i + 2);
+		HtmlPage casePage = postBack(page, listProperties, target, listProperties.getFormInputArgumentValue());
+		
+		// This does not work as the first investigation is continually
+		// loaded upon subsequent requests (probably due to the way the
+		// JavaScript state is managed in the Judge Center).
+		// HtmlPage casePage = row.click();
+		
+		loadInvestigationPage(investigation, casePage, listProperties, caseProperties);
+
+		// Cleanup the current page to reset the current window information.
+		// This call might be superfluous.
+		casePage.cleanUp();
+	}
+	
+	/*
+	 * loadInvestigationPage loads the information from the investigation
+	 * 'view' tab page into the provided Investigation instance.
+	 */
+	void loadInvestigationPage(Investigation investigation, HtmlPage casePage, InvestigationsPageProperties listProperties, InvestigationPageProperties caseProperties) {
+		// Check the selected tab (should be the 'view' tab).
+		if (log.isDebugEnabled()) {
+			String value = casePage.getFormByName(listProperties.getFormName()).getInputByName(listProperties.getFormInputState()).getValueAttribute();
+			log.debug("Page Selected Tab: " + value);
+		}
+		
+		// Load the summary information table at the head of the page.
+		HtmlTable summaryTable = casePage.getHtmlElementById(caseProperties.getSummaryTable());
+		List<HtmlTableRow> summaryRows = summaryTable.getRows();
+		
+		long casePageId = cellAsNumber(summaryRows.get(0).getCell(0).getTextContent());
+		if (investigation.getId() != casePageId) {
+			throw new IllegalStateException(investigation.getId() + " != " + casePageId);
+		}
+		
+		investigation.setIncidentDate(cellAsDate(summaryRows.get(1).getCell(0).getTextContent(), listProperties));
+		investigation.setEnteredDate(cellAsDate(summaryRows.get(2).getCell(0).getTextContent(), listProperties));
+		
+		// Load the event sanctioning number from the 'Key: Value' row content.
+		String sacntionNo = stripCellContent(summaryRows.get(3).getCell(0).getTextContent());
+		investigation.setSanctioningNo(keyValue(sacntionNo, caseProperties));
+		
+		investigation.setEnteredDciNo(cellAsNumber(summaryRows.get(5).getCell(0).getTextContent()));
+		investigation.setSubjectDciNo(cellAsNumber(summaryRows.get(7).getCell(0).getTextContent()));
+		
+		// Load the subject role from the 'Key: Value' row content.
+		String role = stripCellContent(summaryRows.get(8).getCell(0).getTextContent());
+		investigation.setSubjectRole(keyValue(role, caseProperties));
+		
+		// Load the witness table in the middle of the page.
+		HtmlTable witnessTable = casePage.getHtmlElementById(caseProperties.getWitnessTable());
+		List<HtmlTableRow> witnessRows = witnessTable.getRows();
+		for (int j = 1; j < witnessRows.size(); ++j) {
+			HtmlTableRow witnessRow = witnessRows.get(j);
+			Witness witness = new Witness();
+			witness.setName(stripCellContent(witnessRow.getCell(0).getTextContent()));
+			witness.setDciNo(cellAsNumber(witnessRow.getCell(1).getTextContent()));
+			witness.setRole(stripCellContent(witnessRow.getCell(2).getTextContent()));
+			investigation.getWitnesses().add(witness);
+		}
+		
+		// Load the infraction table in the middle of the page.
+		HtmlTable infractionTable = casePage.getHtmlElementById(caseProperties.getInfractionTable());
+		List<HtmlTableRow> infractionRows = infractionTable.getRows();
+		for (int j = 1; j < infractionRows.size(); ++j) {
+			HtmlTableRow infractionRow = infractionRows.get(j);
 			
-			// Add the investigation to the list
-			investigationList.add(investigation);
-			
-			// Cleanup the current page to reset the current window information.
-			// This call might be superfluous.
-			casePage.cleanUp();
+			investigation.getInfractions().add(stripCellContent(infractionRow.getCell(0).getTextContent()));
+		}
+		
+		// Load the statement table at the bottom of the page.
+		HtmlTable statementTable = casePage.getHtmlElementById(caseProperties.getStatementTable());
+		List<HtmlTableRow> statementRows = statementTable.getRows();
+		for (int j = 1; j < statementRows.size(); ++j) {
+			HtmlTableRow statementRow = statementRows.get(j);
+			Statement statement = new Statement();
 			
-			/*
-			if (monitor != null) {
-    			monitor.setProgress(monitor.getProgress() + 1);
+			// Strip and process the second cell containing the witness name
+			// entered date and entered by information.
+			String statementInfo = stripCellContent(statementRow.getCell(1).getTextContent());
+			if (log.isDebugEnabled()) {
+				log.debug("Statement Info: " + statementInfo);
 			}
-			 */
+			statement.setWitnessName(stripCellContent(line(statementInfo, 0)));
+			for (Witness w : investigation.getWitnesses()) {
+				if (statement.getWitnessName().equals(w.getName())) {
+					statement.setWitnessDciNo(w.getDciNo());
+					statement.setWitness(w);
+					w.setStatement(statement);
+					break;
+				}
+			}
+			// Load the entered by information from the second line as 'Key: Value' row content.
+			statement.setEnteredBy(stripCellContent(keyValue(line(statementInfo, 2), caseProperties)));
+			// Load the entered date from the cell content.
+			statement.setEnteredDate(cellAsDate(statementInfo, listProperties));
 			
-			log.debug("Added Investigation: " + investigation);
+			// Load the witness statement.
+			statement.setStatement(stripCellContent(statementRow.getCell(2).getTextContent()), statementArena);
+			
+			investigation.getStatements().add(statement);
 		}
 	}
 	
-	private String stripCellContent(String cellContent) {
-		// Remove extraneous white space characters and " characters that are
-		// added around content within the Judge Center.
-		if (cellContent != null) {
-			return StringUtils.strip(StringUtils.replaceChars(cellContent, "%\u00a0\u2007\u202f", ""));
+	private static String stripCellContent(String cellContent) {
+		// Remove extraneous white space characters and the % and non-breaking
+		// space characters that are added within the Judge Center.  This is
+		// done in a single pass that only copies the content when characters
+		// have to be removed from within it.
+		if (cellContent == null) {
+			return "";
+		}
+		int start = 0;
+		int end = cellContent.length();
+		while (start < end && isStrippedChar(cellContent.charAt(start))) {
+			++start;
+		}
+		while (end > start && isStrippedChar(cellContent.charAt(end - 1))) {
+			--end;
+		}
+		StringBuilder builder = null;
+		for (int i = start; i < end; ++i) {
+			char c = cellContent.charAt(i);
+			if (CELL_REMOVED_CHARS.indexOf(c) >= 0) {
+				if (builder == null) {
+					builder = new StringBuilder(end - start).append(cellContent, start, i);
+				}
+			} else if (builder != null) {
+				builder.append(c);
+			}
 		}
-		return "";
+		return builder != null ? builder.toString() : cellContent.substring(start, end);
+	}
+	
+	private static boolean isStrippedChar(char c) {
+		return Character.isWhitespace(c) || CELL_REMOVED_CHARS.indexOf(c) >= 0;
+	}
+	
+	/*
+	 * keyValue returns the value of 'Key: Value' content.  Throws an
+	 * IllegalStateException when the content has no value.
+	 */
+	private static String keyValue(String content, InvestigationPageProperties caseProperties) {
+		Matcher matcher = caseProperties.getTableKeyValuePattern().matcher(content);
+		if (!matcher.find()) {
+			throw new IllegalStateException("Missing value of: " + content);
+		}
+		return matcher.group(1);
+	}
+	
+	/*
+	 * line returns the (zero based) line of the text; lines are separated by
+	 * any run of white space containing a line break.  Throws an
+	 * IllegalStateException when the text has fewer lines.
+	 */
+	private static String line(String text, int index) {
+		int remaining = index;
+		int start = 0;
+		int run = -1;
+		boolean lineBreak = false;
+		for (int i = 0, length = text.length(); i <= length; ++i) {
+			char c = i < length ? text.charAt(i) : 0;
+			if (i < length && (c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r')) {
+				if (run < 0) {
+					run = i;
+					lineBreak = false;
+				}
+				lineBreak |= c == '\n';
+				continue;
+			}
+			if (i == length || (run >= 0 && lineBreak)) {
+				if (remaining == 0) {
+					return text.substring(start, run >= 0 && lineBreak ? run : length);
+				}
+				--remaining;
+				start = i;
+			}
+			run = -1;
+		}
+		throw new IllegalStateException("Missing line " + index + " of: " + text);
 	}
 	
 	private LocalDate cellAsDate(String cellContent, InvestigationsPageProperties properties) {
@@ -376,26 +1097,38 @@ public class Reporter {
 		return null;
 	}
 	
-	private long cellAsNumber(String cellContent) {
-		// Convert the cell content into a standard integral numerical value.
-		cellContent = stripCellContent(cellContent);
-		if (cellContent != null && !"".equals(cellContent)) {
-			try {
-				Pattern pattern = Pattern.compile("^[^\\d]*(\\d+).*$");
-				Matcher matcher = pattern.matcher(cellContent);
-				if (matcher.find()) {
-					cellContent = matcher.group(1);
-        			return Long.parseLong(cellContent);
+	private static long cellAsNumber(String cellContent) {
+		// Convert the first run of digits in the cell content into a standard
+		// integral numerical value; the characters removed from cell content
+		// are skipped.
+		if (cellContent == null) {
+			return -1;
+		}
+		long value = -1;
+		for (int i = 0, length = cellContent.length(); i < length; ++i) {
+			char c = cellContent.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+					return -1;
 				}
-			} catch (NumberFormatException nfe) {
+				value = Math.max(value, 0) * 10 + (c - '0');
+			} else if (value >= 0 && CELL_REMOVED_CHARS.indexOf(c) < 0) {
+				break;
 			}
 		}
-		return -1;
+		return value;
 	}
 	
 	/**
 	 * Run the reporting software to process the provided users investigations.
-	 * @param args The user id and password as the first and second parameters.
+	 * When a third parameter is provided the investigations are also rendered
+	 * to a report at that path; as HTML when the file name ends with '.html'
+	 * or '.htm' and as plain text otherwise.  When a fourth parameter is
+	 * provided the investigations are also kept in an InvestigationStore in
+	 * that directory.
+	 * @param args The user id and password as the first and second parameters,
+	 * 		the optional report file path as the third parameter and the
+	 * 		optional store directory as the fourth parameter.
 	 * @throws IOException
 	 */
 	public static void main(String[] args) throws IOException {
@@ -415,7 +1148,58 @@ public class Reporter {
 	    	passwd = properties.getProperty("login.page.passwd").toCharArray();
 		}
 		
-		new Reporter().loadInvestigations(userId, passwd);
+		Reporter reporter = new Reporter();
+		ReportWriter report = null;
+		if (args.length >= 3) {
+			// Stream the investigations into the report as they are loaded.
+			String path = args[2];
+			Writer out = new OutputStreamWriter(new FileOutputStream(path), "UTF-8");
+			String lower = path.toLowerCase(Locale.US);
+			report = lower.endsWith(".html") || lower.endsWith(".htm") ? new HtmlReportWriter(out) : new TextReportWriter(out);
+			reporter.addInvestigationListener(report);
+		}
+		InvestigationStore store = null;
+		if (args.length >= 4) {
+			// Keep the investigations in the store as they are loaded.
+			store = new InvestigationStore(new File(args[3]));
+			store.startCompaction(1, TimeUnit.MINUTES);
+			reporter.addInvestigationListener(store);
+		}
+		
+		try {
+			reporter.loadInvestigations(userId, passwd);
+		} finally {
+			if (report != null) {
+				report.close();
+			}
+			if (store != null) {
+				store.close();
+			}
+		}
+	}
+	
+	/*
+	 * BundledProperties loads the bundled page and transport property
+	 * resources, wrapping any failure in an UncheckedIOException.
+	 */
+	private static final class BundledProperties {
+		
+		final LoginPageProperties loginProperties;
+		final InvestigationsPageProperties listProperties;
+		final InvestigationPageProperties caseProperties;
+		final TransportProperties transportProperties;
+		
+		BundledProperties() {
+			try {
+				loginProperties = new LoginPageProperties(RESOURCE_LOGIN_PROPERTIES);
+				listProperties = new InvestigationsPageProperties(RESOURCE_CASES_PROPERTIES);
+				caseProperties = new InvestigationPageProperties(RESOURCE_CASES_PROPERTIES);
+				transportProperties = new TransportProperties(RESOURCE_TRANSPORT_PROPERTIES);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to load the bundled property resources", e);
+			}
+		}
+		
 	}
 	
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+/**
+ * SimilarStatements is a class that represents a pair of witness statements
+ * found to be near duplicates of each other by StatementSimilarity.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.Value
+public class SimilarStatements {
+
+	/** The identifier of the investigation of the earlier statement. */
+	private final long firstInvestigationId;
+	/** The name of the witness of the earlier statement. */
+	private final String firstWitnessName;
+	/** The identifier of the investigation of the later statement. */
+	private final long secondInvestigationId;
+	/** The name of the witness of the later statement. */
+	private final String secondWitnessName;
+	/** The estimated Jaccard similarity of the statements. */
+	private final double similarity;
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d (%s) ~ %d (%s): %.2f", firstInvestigationId, firstWitnessName,
+				secondInvestigationId, secondWitnessName, similarity);
+	}
+
+}
@@ -3,16 +3,24 @@
  */
 package com.darkside.judge;
 
+import java.util.*;
+import lombok.*;
 import org.joda.time.*;
 
 /**
  * Statement is a class that contains all of the information for a particular
  * witness statement for a given investigation incident.
+ * <p>
+ * Statements are equal when their details and text are equal, wherever the
+ * text is kept.  The text of statements kept at the same handle of the same
+ * arena is known to be equal without decompressing it; otherwise it is
+ * compared as text.  The hash code leaves the text out so that it never
+ * decompresses the text, and toString leaves out text kept in an arena.
  * @author DarkSide Software - Nicola DiPasquale
  * @version 1.0
  * @since 1.0
  */
-@lombok.Data @lombok.ToString(exclude="witness")
+@lombok.Data @lombok.ToString(exclude={"witness", "arena", "statementHandle"}, doNotUseGetters=true)
 public class Statement {
 	
 	/** The name of the witness. */
@@ -23,10 +31,93 @@ public class Statement {
 	private LocalDate enteredDate;
 	/** The name of the user who entered the statement. */
 	private String enteredBy;
-	/** The witness statement. */
+	/** The witness statement, unless it is kept in an arena. */
 	private String statement;
 	
 	/** The Witness information, if any. */
 	private Witness witness;
 
+	/* The arena keeping the compressed witness statement, if any */
+	@lombok.Getter(AccessLevel.NONE) @lombok.Setter(AccessLevel.NONE)
+	private StatementTextArena arena;
+	/* The handle of the witness statement within the arena */
+	@lombok.Getter(AccessLevel.NONE) @lombok.Setter(AccessLevel.NONE)
+	private long statementHandle;
+
+	/**
+	 * Get the witness statement; a statement kept in an arena is decompressed.
+	 * @return The witness statement.
+	 */
+	public String getStatement() {
+		return arena != null ? arena.load(statementHandle) : statement;
+	}
+
+	/**
+	 * Set the witness statement.
+	 * @param statement The witness statement.
+	 */
+	public void setStatement(String statement) {
+		setStatement(statement, null);
+	}
+
+	/**
+	 * Set the witness statement keeping it compressed in the provided arena.
+	 * @param statement The witness statement.
+	 * @param arena The StatementTextArena instance or null to keep the
+	 * 		statement on the heap.
+	 */
+	public void setStatement(String statement, StatementTextArena arena) {
+		if (arena != null && statement != null) {
+			this.statementHandle = arena.store(statement);
+			this.arena = arena;
+			this.statement = null;
+		} else {
+			this.statementHandle = 0;
+			this.arena = null;
+			this.statement = statement;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Statement)) {
+			return false;
+		}
+		Statement other = (Statement) o;
+		if (witnessDciNo != other.witnessDciNo || !Objects.equals(witnessName, other.witnessName)
+				|| !Objects.equals(enteredDate, other.enteredDate) || !Objects.equals(enteredBy, other.enteredBy)
+				|| !isSameWitness(witness, other.witness)) {
+			return false;
+		}
+		if (arena != null && arena == other.arena && statementHandle == other.statementHandle) {
+			return true;
+		}
+		return Objects.equals(getStatement(), other.getStatement());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(witnessName, witnessDciNo, enteredDate, enteredBy);
+	}
+
+	/*
+	 * isSameWitness compares the witnesses by their details; the witness
+	 * statement refers back to this statement so it is not compared.
+	 */
+	private static boolean isSameWitness(Witness a, Witness b) {
+		if (a == null || b == null) {
+			return a == b;
+		}
+		return a.getDciNo() == b.getDciNo() && Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getRole(), b.getRole());
+	}
+
 }
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * StatementSimilarity is a class that finds near duplicate witness statements
+ * across investigations.  Each statement is normalised and broken into
+ * character shingles, summarised by a MinHash signature and then bucketed by
+ * locality-sensitive hashing (LSH) on bands of the signature, so a statement
+ * is only compared with the statements sharing a bucket rather than with
+ * every other statement.  Candidate pairs whose estimated Jaccard similarity
+ * reaches the threshold are reported as SimilarStatements.
+ * <p>
+ * The number of bands is chosen from the signature length so that pairs at
+ * the threshold are very likely to share a bucket.  Statements by the same
+ * witness within the same investigation are never paired.
+ * <p>
+ * Statements with exactly the same signature, such as boilerplate pasted into
+ * many reports, are collapsed into the first of them; each later copy is
+ * paired with that first statement only, so the pairs grow linearly rather
+ * than quadratically with the number of copies.
+ * <p>
+ * Statements are added incrementally; as an InvestigationListener the
+ * signatures of each loaded investigation are computed in the background on
+ * an executor while the scrape continues and are added to the buckets in the
+ * order the investigations were loaded.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class StatementSimilarity implements InvestigationListener, Closeable {
+
+	/** The default number of MinHash functions. */
+	public static final int DEFAULT_HASHES = 128;
+	/** The default shingle length in characters. */
+	public static final int DEFAULT_SHINGLE_SIZE = 5;
+
+	/** The Jaccard similarity threshold of reported pairs. */
+	@lombok.Getter
+	private final double threshold;
+	/** The shingle length in characters. */
+	@lombok.Getter
+	private final int shingleSize;
+	/* The MinHash function seeds */
+	private final long[] seeds;
+	/* The number of signature rows in each band */
+	private final int rows;
+	/* The LSH buckets of each band; band hash to statement indices */
+	private final List<Map<Long, List<Integer>>> buckets;
+	/* The added statements with distinct signatures */
+	private final List<Entry> entries = new ArrayList<Entry>();
+	/* The statements with distinct signatures; signature hash to statement indices */
+	private final Map<Long, List<Integer>> signatures = new HashMap<Long, List<Integer>>();
+	/* The number of statements collapsed into an earlier statement with the same signature */
+	private int duplicates;
+	/* The pairs found so far */
+	private final List<SimilarStatements> pairs = new ArrayList<SimilarStatements>();
+	/* The signatures being computed, in the order the statements were added */
+	private final Queue<Pending> pending = new ArrayDeque<Pending>();
+	/* The signature executor */
+	private final ExecutorService executor;
+	/* True when the executor was created by this instance */
+	private final boolean ownExecutor;
+
+	/**
+	 * Construct a new StatementSimilarity instance with the default signature
+	 * length and shingle size that computes signatures on all processors.
+	 * @param threshold The Jaccard similarity threshold.
+	 */
+	public StatementSimilarity(double threshold) {
+		this(threshold, DEFAULT_SHINGLE_SIZE, DEFAULT_HASHES, null);
+	}
+
+	/**
+	 * Construct a new StatementSimilarity instance.
+	 * @param threshold The Jaccard similarity threshold, between zero and one.
+	 * @param shingleSize The shingle length in characters.
+	 * @param hashes The number of MinHash functions.
+	 * @param executor The executor the signatures are computed on or null to
+	 * 		use a new executor with a thread for each processor.
+	 */
+	public StatementSimilarity(double threshold, int shingleSize, int hashes, ExecutorService executor) {
+		if (threshold <= 0 || threshold > 1) {
+			throw new IllegalArgumentException("The threshold must be greater than 0 and at most 1: " + threshold);
+		}
+		if (shingleSize < 1 || hashes < 1) {
+			throw new IllegalArgumentException("The shingle size and number of hashes must be positive");
+		}
+		this.threshold = threshold;
+		this.shingleSize = shingleSize;
+
+		Random random = new Random(0x5EEDL);
+		seeds = new long[hashes];
+		for (int i = 0; i < hashes; ++i) {
+			seeds[i] = random.nextLong();
+		}
+
+		rows = chooseRows(threshold, hashes);
+		int bands = hashes / rows;
+		buckets = new ArrayList<Map<Long, List<Integer>>>(bands);
+		for (int i = 0; i < bands; ++i) {
+			buckets.add(new HashMap<Long, List<Integer>>());
+		}
+
+		this.ownExecutor = executor == null;
+		this.executor = executor != null ? executor : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "statement-similarity");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		log.debug("Statement similarity threshold " + threshold + " using " + bands + " bands of " + rows + " rows");
+	}
+
+	/**
+	 * Add the statements of the provided investigations and wait for them to
+	 * be compared.  The signatures are computed in parallel.
+	 * @param investigations The investigations to add.
+	 * @return The pairs found for the added statements.
+	 */
+	public synchronized List<SimilarStatements> addAll(Iterable<Investigation> investigations) {
+		int found = pairs.size();
+		for (Investigation investigation : investigations) {
+			submit(investigation);
+		}
+		drain(true);
+		return new ArrayList<SimilarStatements>(pairs.subList(found, pairs.size()));
+	}
+
+	/**
+	 * Get the pairs found so far; statements whose signatures are still being
+	 * computed are not included.
+	 * @return The list of SimilarStatements in the order they were found.
+	 */
+	public synchronized List<SimilarStatements> getPairs() {
+		drain(false);
+		return new ArrayList<SimilarStatements>(pairs);
+	}
+
+	/**
+	 * Get the number of statements compared so far.
+	 * @return The number of statements.
+	 */
+	public synchronized int getStatementCount() {
+		return entries.size() + duplicates;
+	}
+
+	/**
+	 * Get the number of statements compared so far that had exactly the same
+	 * signature as an earlier statement.
+	 * @return The number of duplicate statements.
+	 */
+	public synchronized int getDuplicateCount() {
+		return duplicates;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationsStarted(java.lang.String, int)
+	 */
+	@Override
+	public void investigationsStarted(String name, int count) throws IOException {
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationLoaded(com.darkside.judge.Investigation)
+	 */
+	@Override
+	public synchronized void investigationLoaded(Investigation investigation) throws IOException {
+		submit(investigation);
+		drain(false);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.InvestigationListener#investigationsFinished()
+	 */
+	@Override
+	public synchronized void investigationsFinished() throws IOException {
+		drain(true);
+		log.info(pairs.size() + " similar statement pairs among " + (entries.size() + duplicates) + " statements, "
+				+ duplicates + " duplicates");
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		if (ownExecutor) {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * submit queues the signature computation of each statement of the
+	 * investigation.
+	 */
+	private void submit(Investigation investigation) {
+		for (Statement statement : investigation.getStatements()) {
+			final String text = statement.getStatement();
+			if (text == null || text.trim().isEmpty()) {
+				continue;
+			}
+			Entry entry = new Entry(investigation.getId(), statement.getWitnessName());
+			pending.add(new Pending(entry, executor.submit(new Callable<int[]>() {
+				public int[] call() {
+					return signature(text);
+				}
+			})));
+		}
+	}
+
+	/*
+	 * drain adds the statements whose signatures are computed to the buckets
+	 * in the order they were submitted; when wait is true it waits for all of
+	 * them.
+	 */
+	private void drain(boolean wait) {
+		while (!pending.isEmpty() && (wait || pending.peek().signature.isDone())) {
+			Pending next = pending.remove();
+			try {
+				next.entry.signature = next.signature.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted computing statement signatures", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Statement signature computation failed", e.getCause());
+			}
+			add(next.entry);
+		}
+	}
+
+	/*
+	 * add pairs the statement with an earlier statement with the same
+	 * signature if there is one, otherwise it compares the statement with the
+	 * statements sharing any of its band buckets then adds it to those
+	 * buckets.
+	 */
+	private void add(Entry entry) {
+		Long signatureKey = signatureHash(entry.signature);
+		List<Integer> same = signatures.get(signatureKey);
+		if (same == null) {
+			same = new ArrayList<Integer>(1);
+			signatures.put(signatureKey, same);
+		} else {
+			for (int candidate : same) {
+				Entry original = entries.get(candidate);
+				if (Arrays.equals(original.signature, entry.signature)) {
+					++duplicates;
+					if (!isSameWitness(original, entry)) {
+						pair(original, entry, 1.0);
+					}
+					return;
+				}
+			}
+		}
+		int index = entries.size();
+		entries.add(entry);
+		same.add(index);
+
+		Set<Integer> candidates = new HashSet<Integer>();
+		for (int band = 0; band < buckets.size(); ++band) {
+			Long key = bandHash(entry.signature, band);
+			List<Integer> bucket = buckets.get(band).get(key);
+			if (bucket == null) {
+				bucket = new ArrayList<Integer>(1);
+				buckets.get(band).put(key, bucket);
+			} else {
+				candidates.addAll(bucket);
+			}
+			bucket.add(index);
+		}
+
+		for (int candidate : candidates) {
+			Entry other = entries.get(candidate);
+			if (isSameWitness(other, entry)) {
+				continue;
+			}
+			double similarity = similarity(other.signature, entry.signature);
+			if (similarity >= threshold) {
+				pair(other, entry, similarity);
+			}
+		}
+	}
+
+	private void pair(Entry first, Entry second, double similarity) {
+		SimilarStatements pair = new SimilarStatements(first.investigationId, first.witnessName,
+				second.investigationId, second.witnessName, similarity);
+		log.debug("Similar statements " + pair);
+		pairs.add(pair);
+	}
+
+	/*
+	 * signature computes the MinHash signature of the statement shingles.
+	 */
+	private int[] signature(String text) {
+		String normalised = normalise(text);
+		int[] signature = new int[seeds.length];
+		Arrays.fill(signature, Integer.MAX_VALUE);
+
+		int shingles = Math.max(1, normalised.length() - shingleSize + 1);
+		for (int i = 0; i < shingles; ++i) {
+			long shingle = 0;
+			for (int j = i, end = Math.min(i + shingleSize, normalised.length()); j < end; ++j) {
+				shingle = shingle * 31 + normalised.charAt(j);
+			}
+			for (int h = 0; h < seeds.length; ++h) {
+				int value = (int) (mix(shingle ^ seeds[h]) >>> 33);
+				if (value < signature[h]) {
+					signature[h] = value;
+				}
+			}
+		}
+		return signature;
+	}
+
+	/*
+	 * normalise lower cases the text and reduces punctuation and runs of
+	 * white space to single spaces so that formatting does not affect the
+	 * similarity.
+	 */
+	private static String normalise(String text) {
+		StringBuilder builder = new StringBuilder(text.length());
+		boolean space = true;
+		for (int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				builder.append(Character.toLowerCase(c));
+				space = false;
+			} else if (!space) {
+				builder.append(' ');
+				space = true;
+			}
+		}
+		int length = builder.length();
+		if (length > 0 && builder.charAt(length - 1) == ' ') {
+			builder.setLength(length - 1);
+		}
+		return builder.toString();
+	}
+
+	private long bandHash(int[] signature, int band) {
+		long hash = band;
+		for (int i = band * rows, end = i + rows; i < end; ++i) {
+			hash = mix(hash * 31 + signature[i]);
+		}
+		return hash;
+	}
+
+	private static long signatureHash(int[] signature) {
+		long hash = 0;
+		for (int value : signature) {
+			hash = mix(hash * 31 + value);
+		}
+		return hash;
+	}
+
+	/*
+	 * similarity estimates the Jaccard similarity as the fraction of equal
+	 * signature values.
+	 */
+	private static double similarity(int[] a, int[] b) {
+		int equal = 0;
+		for (int i = 0; i < a.length; ++i) {
+			if (a[i] == b[i]) {
+				++equal;
+			}
+		}
+		return (double) equal / a.length;
+	}
+
+	/*
+	 * chooseRows picks the greatest number of rows per band, among the
+	 * divisors of the signature length, whose LSH threshold (1/b)^(1/r) does
+	 * not exceed the similarity threshold.  This keeps the number of
+	 * candidate pairs low while missing few pairs above the threshold.
+	 */
+	private static int chooseRows(double threshold, int hashes) {
+		int rows = 1;
+		for (int r = 1; r <= hashes; ++r) {
+			if (hashes % r == 0 && Math.pow(1.0 / (hashes / r), 1.0 / r) <= threshold) {
+				rows = r;
+			}
+		}
+		return rows;
+	}
+
+	/*
+	 * isSameWitness tests whether the statements are by the same witness in
+	 * the same investigation.
+	 */
+	private static boolean isSameWitness(Entry a, Entry b) {
+		return a.investigationId == b.investigationId && equalsIgnoreCase(a.witnessName, b.witnessName);
+	}
+
+	private static boolean equalsIgnoreCase(String a, String b) {
+		return a == null ? b == null : a.equalsIgnoreCase(b);
+	}
+
+	/*
+	 * mix is the 64-bit finaliser of the SplitMix64 generator.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/*
+	 * Entry is an added statement.
+	 */
+	private static final class Entry {
+
+		final long investigationId;
+		final String witnessName;
+		int[] signature;
+
+		Entry(long investigationId, String witnessName) {
+			this.investigationId = investigationId;
+			this.witnessName = witnessName;
+		}
+
+	}
+
+	/*
+	 * Pending is a statement whose signature is being computed.
+	 */
+	private static final class Pending {
+
+		final Entry entry;
+		final Future<int[]> signature;
+
+		Pending(Entry entry, Future<int[]> signature) {
+			this.entry = entry;
+			this.signature = signature;
+		}
+
+	}
+
+}
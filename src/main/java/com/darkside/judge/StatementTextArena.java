@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * StatementTextArena is a class that keeps witness statement text deflate
+ * compressed in direct (off-heap) buffers so that the statements of large
+ * investigation sets add little to the heap or to garbage collection.  Text
+ * is appended to fixed size direct buffer chunks and identified by a handle;
+ * a text larger than a chunk is given its own buffer.  The most recently
+ * loaded texts are kept decoded in a small LRU cache.
+ * <p>
+ * Text is never removed from an arena; the memory is released when the arena
+ * and every Statement referring to it are no longer reachable.  All methods
+ * are thread safe.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class StatementTextArena {
+
+	/** The default chunk size in bytes. */
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+	/** The default number of decoded texts cached. */
+	public static final int DEFAULT_CACHE_SIZE = 64;
+
+	/* The text encoding */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	/* The entry header: compressed length and encoded length */
+	private static final int ENTRY_HEADER_SIZE = 8;
+
+	/* The chunk size in bytes */
+	private final int chunkSize;
+	/* The direct buffer chunks */
+	private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	/* The decoded text cache, by handle */
+	private final Map<Long, String> cache;
+	/* The compressor and decompressor; reused for every text */
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final Inflater inflater = new Inflater();
+	/* The compression buffer */
+	private byte[] buffer = new byte[4096];
+	/* The number of texts stored */
+	private long texts;
+	/* The number of encoded text bytes stored */
+	private long rawBytes;
+	/* The number of compressed bytes stored */
+	private long storedBytes;
+
+	/**
+	 * Construct a new StatementTextArena instance with the default chunk and
+	 * cache sizes.
+	 */
+	public StatementTextArena() {
+		this(DEFAULT_CHUNK_SIZE, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Construct a new StatementTextArena instance.
+	 * @param chunkSize The size of each direct buffer chunk in bytes.
+	 * @param cacheSize The number of decoded texts cached; zero disables the
+	 * 		cache.
+	 */
+	public StatementTextArena(int chunkSize, final int cacheSize) {
+		if (chunkSize < ENTRY_HEADER_SIZE) {
+			throw new IllegalArgumentException("The chunk size is too small: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		this.cache = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Compress the provided text into the arena.
+	 * @param text The text to store.
+	 * @return The handle used to load the text.
+	 */
+	public synchronized long store(String text) {
+		byte[] encoded = text.getBytes(UTF8);
+		deflater.reset();
+		deflater.setInput(encoded);
+		deflater.finish();
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+			length += deflater.deflate(buffer, length, buffer.length - length);
+		}
+
+		ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+		int size = ENTRY_HEADER_SIZE + length;
+		if (chunk == null || chunk.remaining() < size) {
+			chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, size));
+			chunks.add(chunk);
+		}
+		long handle = (long) (chunks.size() - 1) << 32 | chunk.position();
+		chunk.putInt(length);
+		chunk.putInt(encoded.length);
+		chunk.put(buffer, 0, length);
+
+		++texts;
+		rawBytes += encoded.length;
+		storedBytes += size;
+		return handle;
+	}
+
+	/**
+	 * Load the text for the provided handle.
+	 * @param handle The handle returned when the text was stored.
+	 * @return The text.
+	 */
+	public synchronized String load(long handle) {
+		String text = cache.get(handle);
+		if (text != null) {
+			return text;
+		}
+
+		ByteBuffer chunk = chunks.get((int) (handle >>> 32)).duplicate();
+		chunk.position((int) handle);
+		int length = chunk.getInt();
+		byte[] encoded = new byte[chunk.getInt()];
+		if (length > buffer.length) {
+			buffer = new byte[length];
+		}
+		chunk.get(buffer, 0, length);
+
+		inflater.reset();
+		inflater.setInput(buffer, 0, length);
+		try {
+			int n = 0;
+			while (n < encoded.length) {
+				int inflated = inflater.inflate(encoded, n, encoded.length - n);
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IllegalStateException("Truncated statement text @" + Long.toHexString(handle));
+				}
+				n += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Corrupt statement text @" + Long.toHexString(handle), e);
+		}
+
+		text = new String(encoded, UTF8);
+		cache.put(handle, text);
+		return text;
+	}
+
+	/**
+	 * Get the number of texts stored.
+	 * @return The number of texts.
+	 */
+	public synchronized long getTextCount() {
+		return texts;
+	}
+
+	/**
+	 * Get the number of UTF-8 encoded bytes of the stored texts.
+	 * @return The uncompressed size.
+	 */
+	public synchronized long getRawBytes() {
+		return rawBytes;
+	}
+
+	/**
+	 * Get the number of bytes used within the chunks.
+	 * @return The compressed size.
+	 */
+	public synchronized long getStoredBytes() {
+		return storedBytes;
+	}
+
+	/**
+	 * Get the number of off-heap bytes allocated.
+	 * @return The total size of the chunks.
+	 */
+	public synchronized long getAllocatedBytes() {
+		long allocated = 0;
+		for (ByteBuffer chunk : chunks) {
+			allocated += chunk.capacity();
+		}
+		return allocated;
+	}
+
+}
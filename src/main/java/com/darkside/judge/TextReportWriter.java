@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import org.apache.commons.lang3.*;
+
+/**
+ * TextReportWriter is a ReportWriter that renders the investigation report as
+ * plain text suitable for e-mail or printing.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class TextReportWriter extends ReportWriter {
+
+	/* The line separator written between lines of the report */
+	private static final String NEWLINE = System.getProperty("line.separator");
+	/* The rule written beneath section headings */
+	private static final String RULE = StringUtils.repeat('=', 78);
+	/* The rule written between investigations */
+	private static final String SEPARATOR = StringUtils.repeat('-', 78);
+
+	/**
+	 * Construct a new TextReportWriter instance writing to the provided writer.
+	 * @param out The writer the report is written to.
+	 */
+	public TextReportWriter(Writer out) {
+		super(out);
+	}
+
+	/**
+	 * Construct a new TextReportWriter instance writing to the provided writer.
+	 * @param out The writer the report is written to.
+	 * @param spoolDirectory The directory the status group spool files are
+	 * 		created in or null for the default temporary directory.
+	 */
+	public TextReportWriter(Writer out, File spoolDirectory) {
+		super(out, spoolDirectory);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeHeader(java.lang.String, int)
+	 */
+	@Override
+	protected void writeHeader(String name, int count) throws IOException {
+		writeLine("Investigations Report: " + name);
+		writeLine(RULE);
+		out.write(NEWLINE);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeGroupStart(java.lang.String)
+	 */
+	@Override
+	protected void writeGroupStart(String status) throws IOException {
+		writeLine("Status: " + status);
+		writeLine(RULE);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeInvestigation(com.darkside.judge.Investigation)
+	 */
+	@Override
+	protected void writeInvestigation(Investigation investigation) throws IOException {
+		writeLine("Investigation " + investigation.getId());
+		writeField("Incident Date", investigation.getIncidentDate());
+		writeField("Entered Date", investigation.getEnteredDate());
+		writeField("Entered By", investigation.getEnteredBy() + " (" + investigation.getEnteredDciNo() + ")");
+		writeField("Subject", investigation.getSubject() + " (" + investigation.getSubjectDciNo() + ")");
+		writeField("Subject Role", investigation.getSubjectRole());
+		writeField("Sanctioning No", investigation.getSanctioningNo());
+		writeField("Event", investigation.getEventType() + " (" + investigation.getEventRel() + ")");
+		writeField("Location", investigation.getCity() + ", " + investigation.getCountry());
+		writeField("Infractions", StringUtils.join(investigation.getInfractions(), "; "));
+		writeField("Status", investigation.getStatus());
+		writeField("Resolution", investigation.getResolution());
+
+		for (Witness witness : investigation.getWitnesses()) {
+			writeField("Witness", witness.getName() + " (" + witness.getDciNo() + "), " + witness.getRole());
+		}
+
+		for (Statement statement : investigation.getStatements()) {
+			out.write(NEWLINE);
+			writeLine("  Statement of " + statement.getWitnessName() + ", entered " + statement.getEnteredDate() + " by " + statement.getEnteredBy() + ":");
+			// Indent each line of the statement text beneath its heading; the
+			// lines may be separated by either \n or \r\n.
+			String text = statement.getStatement();
+			if (text != null) {
+				int start = 0;
+				int end;
+				while ((end = text.indexOf('\n', start)) >= 0) {
+					writeStatementLine(text, start, end);
+					start = end + 1;
+				}
+				writeStatementLine(text, start, text.length());
+			}
+		}
+		writeLine(SEPARATOR);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeGroupEnd(java.lang.String)
+	 */
+	@Override
+	protected void writeGroupEnd(String status) throws IOException {
+		out.write(NEWLINE);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeSummary(com.darkside.judge.ReportSummary)
+	 */
+	@Override
+	protected void writeSummary(ReportSummary summary) throws IOException {
+		writeLine("Summary");
+		writeLine(RULE);
+		writeField("Investigations", summary.getInvestigations());
+		writeField("Witnesses", summary.getWitnesses());
+		writeField("Statements", summary.getStatements());
+		writeField("Earliest Entered", summary.getEarliestEnteredDate());
+		writeField("Latest Entered", summary.getLatestEnteredDate());
+		for (String status : summary.getStatuses()) {
+			writeField("  " + status, summary.getStatusCount(status));
+		}
+		out.write(NEWLINE);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.darkside.judge.ReportWriter#writeFooter()
+	 */
+	@Override
+	protected void writeFooter() throws IOException {
+		out.write(NEWLINE);
+	}
+
+	/*
+	 * writeField writes a single 'Label: Value' line with the labels aligned.
+	 */
+	private void writeField(String label, Object value) throws IOException {
+		out.write(label);
+		out.write(':');
+		for (int i = label.length(); i < 18; ++i) {
+			out.write(' ');
+		}
+		write(value);
+		out.write(NEWLINE);
+	}
+
+	/*
+	 * writeStatementLine writes the indented line of the statement text
+	 * between start and end without its trailing \r, if any.
+	 */
+	private void writeStatementLine(String text, int start, int end) throws IOException {
+		if (end > start && text.charAt(end - 1) == '\r') {
+			--end;
+		}
+		out.write("    ");
+		out.write(text, start, end - start);
+		out.write(NEWLINE);
+	}
+
+	/*
+	 * writeLine writes the provided text followed by a line separator.
+	 */
+	private void writeLine(String text) throws IOException {
+		out.write(text);
+		out.write(NEWLINE);
+	}
+
+}
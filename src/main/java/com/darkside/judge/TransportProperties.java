@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.util.*;
+
+/**
+ * TransportProperties is a property wrapper class that upon construction loads
+ * the provided property resource and reads all values associated with the
+ * HTTP transport used to communicate with the Judge Center.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.Getter
+public final class TransportProperties {
+
+	/** The maximum number of pooled connections to a single host. */
+	private final int maxConnectionsPerRoute;
+	/** The maximum number of pooled connections. */
+	private final int maxConnections;
+	/** The time an idle connection is kept alive when the server does not say. */
+	private final long keepAliveMillis;
+	/** Whether pooled connections are checked for staleness before reuse. */
+	private final boolean staleCheck;
+	
+	/** The connect timeout in milliseconds. */
+	private final int connectTimeout;
+	/** The socket read timeout in milliseconds. */
+	private final int socketTimeout;
+	/** The timeout for leasing a connection from the pool in milliseconds. */
+	private final int connectionRequestTimeout;
+	
+	/** Whether gzip and deflate response compression is negotiated. */
+	private final boolean compression;
+	
+	/**
+	 * Construct a new TransportProperties instance from the provided resource
+	 * identifier.
+	 * @param resourceId The resource identifier of the properties file to load.
+	 * @throws java.io.IOException
+	 */
+	public TransportProperties(String resourceId) throws java.io.IOException {
+		this(loadResource(resourceId));
+	}
+	
+	/**
+	 * Construct a new TransportProperties instance from the provided
+	 * properties.
+	 * @param properties The properties to read the transport values from.
+	 */
+	public TransportProperties(Properties properties) {
+		maxConnectionsPerRoute = Integer.parseInt(properties.getProperty("transport.connections.max_per_route"));
+		maxConnections = Integer.parseInt(properties.getProperty("transport.connections.max_total"));
+		keepAliveMillis = Long.parseLong(properties.getProperty("transport.connections.keep_alive_millis"));
+		staleCheck = Boolean.parseBoolean(properties.getProperty("transport.connections.stale_check"));
+		
+		connectTimeout = Integer.parseInt(properties.getProperty("transport.timeout.connect_millis"));
+		socketTimeout = Integer.parseInt(properties.getProperty("transport.timeout.socket_millis"));
+		connectionRequestTimeout = Integer.parseInt(properties.getProperty("transport.timeout.connection_request_millis"));
+		
+		compression = Boolean.parseBoolean(properties.getProperty("transport.compression"));
+	}
+	
+	/*
+	 * loadResource loads the properties from the provided resource identifier.
+	 */
+	private static Properties loadResource(String resourceId) throws java.io.IOException {
+		Properties properties = new Properties();
+		properties.load(TransportProperties.class.getClassLoader().getResourceAsStream(resourceId));
+		return properties;
+	}
+	
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * TransportStatistics is a class that accumulates the request, connection,
+ * byte and latency totals of a PooledWebConnection.  All counters may be
+ * updated and read concurrently.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class TransportStatistics {
+
+	/* The number of requests made */
+	private final AtomicLong requests = new AtomicLong();
+	/* The number of new connections opened */
+	private final AtomicLong connections = new AtomicLong();
+	/* The number of response body bytes received over the wire */
+	private final AtomicLong bytesReceived = new AtomicLong();
+	/* The number of response body bytes after decompression */
+	private final AtomicLong bytesDecoded = new AtomicLong();
+	/* The total request latency in nanoseconds */
+	private final AtomicLong latencyNanos = new AtomicLong();
+	/* The greatest request latency in nanoseconds */
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	/**
+	 * Record a completed request.
+	 * @param received The number of body bytes received over the wire.
+	 * @param decoded The number of body bytes after decompression.
+	 * @param latency The request latency in nanoseconds.
+	 */
+	public void recordRequest(long received, long decoded, long latency) {
+		requests.incrementAndGet();
+		bytesReceived.addAndGet(received);
+		bytesDecoded.addAndGet(decoded);
+		latencyNanos.addAndGet(latency);
+		long max;
+		while (latency > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latency)) {
+			// Retry until the greatest latency is recorded.
+		}
+	}
+
+	/**
+	 * Record a newly opened connection.
+	 */
+	public void recordConnection() {
+		connections.incrementAndGet();
+	}
+
+	/**
+	 * Get the number of requests made.
+	 * @return The number of requests.
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * Get the number of new connections opened.
+	 * @return The number of connections.
+	 */
+	public long getConnections() {
+		return connections.get();
+	}
+
+	/**
+	 * Get the number of response body bytes received over the wire.
+	 * @return The number of bytes received.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * Get the number of response body bytes after decompression.
+	 * @return The number of decoded bytes.
+	 */
+	public long getBytesDecoded() {
+		return bytesDecoded.get();
+	}
+
+	/**
+	 * Get the mean request latency in milliseconds.
+	 * @return The mean latency or zero if no requests have been made.
+	 */
+	public double getMeanLatencyMillis() {
+		long count = requests.get();
+		return count > 0 ? latencyNanos.get() / 1e6 / count : 0;
+	}
+
+	/**
+	 * Get the greatest request latency in milliseconds.
+	 * @return The greatest latency.
+	 */
+	public double getMaxLatencyMillis() {
+		return maxLatencyNanos.get() / 1e6;
+	}
+
+	/**
+	 * Reset all of the counters to zero.
+	 */
+	public void reset() {
+		requests.set(0);
+		connections.set(0);
+		bytesReceived.set(0);
+		bytesDecoded.set(0);
+		latencyNanos.set(0);
+		maxLatencyNanos.set(0);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d requests, %d connections, %d bytes received (%d decoded), %.1fms mean latency, %.1fms max latency",
+				getRequests(), getConnections(), getBytesReceived(), getBytesDecoded(), getMeanLatencyMillis(), getMaxLatencyMillis());
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import org.joda.time.*;
+import org.junit.*;
+
+/**
+ * InvestigationCodecTest checks that investigations survive the binary
+ * encoding of the InvestigationStore, including the witness and statement
+ * cross references.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class InvestigationCodecTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Investigation investigation = investigation(100001);
+		Investigation decoded = InvestigationCodec.decode(InvestigationCodec.encode(investigation));
+
+		assertEquals(investigation.getId(), decoded.getId());
+		assertEquals(investigation.getIncidentDate(), decoded.getIncidentDate());
+		assertEquals(investigation.getEnteredDate(), decoded.getEnteredDate());
+		assertEquals(investigation.getSanctioningNo(), decoded.getSanctioningNo());
+		assertEquals(investigation.getEnteredBy(), decoded.getEnteredBy());
+		assertEquals(investigation.getEnteredDciNo(), decoded.getEnteredDciNo());
+		assertEquals(investigation.getSubject(), decoded.getSubject());
+		assertEquals(investigation.getSubjectDciNo(), decoded.getSubjectDciNo());
+		assertEquals(investigation.getStatus(), decoded.getStatus());
+		assertNull(decoded.getResolution());
+		assertEquals(investigation.getInfractions(), decoded.getInfractions());
+
+		assertEquals(2, decoded.getWitnesses().size());
+		assertEquals(3, decoded.getStatements().size());
+		for (int i = 0; i < 3; ++i) {
+			Statement expected = investigation.getStatements().get(i);
+			Statement statement = decoded.getStatements().get(i);
+			assertEquals(expected.getWitnessName(), statement.getWitnessName());
+			assertEquals(expected.getEnteredDate(), statement.getEnteredDate());
+			assertEquals(expected.getStatement(), statement.getStatement());
+		}
+		// The cross references are restored to the decoded instances.
+		assertSame(decoded.getWitnesses().get(0), decoded.getStatements().get(0).getWitness());
+		assertSame(decoded.getStatements().get(0), decoded.getWitnesses().get(0).getStatement());
+		assertSame(decoded.getWitnesses().get(1), decoded.getStatements().get(1).getWitness());
+		assertNull(decoded.getStatements().get(2).getWitness());
+
+		assertArrayEquals(InvestigationCodec.encode(investigation), InvestigationCodec.encode(decoded));
+	}
+
+	@Test
+	public void testEqualWitnessesKeepTheirStatements() throws IOException {
+		// Two witnesses with the same details, each with its own statement.
+		Investigation investigation = new Investigation();
+		investigation.setId(100002);
+		for (int i = 0; i < 2; ++i) {
+			Witness witness = new Witness();
+			witness.setName("Jane Doe");
+			witness.setRole("Player");
+			Statement statement = new Statement();
+			statement.setWitnessName("Jane Doe");
+			statement.setStatement("Statement " + i);
+			statement.setWitness(witness);
+			witness.setStatement(statement);
+			investigation.getWitnesses().add(witness);
+			investigation.getStatements().add(statement);
+		}
+
+		Investigation decoded = InvestigationCodec.decode(InvestigationCodec.encode(investigation));
+		for (int i = 0; i < 2; ++i) {
+			Witness witness = decoded.getWitnesses().get(i);
+			assertSame(witness, decoded.getStatements().get(i).getWitness());
+			assertEquals("Statement " + i, witness.getStatement().getStatement());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnsupportedVersion() throws IOException {
+		byte[] data = InvestigationCodec.encode(investigation(100003));
+		data[0] = 99;
+		InvestigationCodec.decode(data);
+	}
+
+	static Investigation investigation(long id) {
+		Investigation investigation = new Investigation();
+		investigation.setId(id);
+		investigation.setIncidentDate(new LocalDate(2015, 2, 20));
+		investigation.setEnteredDate(new LocalDate(2015, 2, 22));
+		investigation.setSanctioningNo("123-456789");
+		investigation.setEnteredBy("Alex Judge");
+		investigation.setEnteredDciNo(1234567);
+		investigation.setSubject("Sam Player");
+		investigation.setSubjectDciNo(7654321);
+		investigation.setSubjectRole("Player");
+		investigation.setEventRel("Competitive");
+		investigation.setEventType("Grand Prix");
+		investigation.setCity("Montr\u00e9al");
+		investigation.setCountry("Canada");
+		investigation.setStatus("Open");
+		investigation.getInfractions().add("Cheating - Fraud");
+		investigation.getInfractions().add("Unsporting Conduct - Major");
+
+		for (int i = 0; i < 3; ++i) {
+			Statement statement = new Statement();
+			statement.setWitnessName("Witness " + i);
+			statement.setWitnessDciNo(1000 + i);
+			statement.setEnteredDate(new LocalDate(2015, 2, 21 + i));
+			statement.setEnteredBy("Alex Judge");
+			statement.setStatement("The player drew an extra card \u2014 statement " + i + " of investigation " + id);
+			if (i < 2) {
+				Witness witness = new Witness();
+				witness.setName("Witness " + i);
+				witness.setDciNo(1000 + i);
+				witness.setRole(i == 0 ? "Opponent" : "Spectator");
+				witness.setStatement(statement);
+				statement.setWitness(witness);
+				investigation.getWitnesses().add(witness);
+			}
+			investigation.getStatements().add(statement);
+		}
+		return investigation;
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import org.joda.time.*;
+import org.junit.*;
+
+/**
+ * InvestigationQueryTest checks the InvestigationQuery predicates evaluated
+ * against the investigation list rows.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class InvestigationQueryTest {
+
+	private static final LocalDate TODAY = new LocalDate(2015, 3, 15);
+
+	@Test
+	public void testEmptyQueryMatchesEverything() {
+		InvestigationQuery query = new InvestigationQuery();
+		assertTrue(query.matches(new Investigation()));
+		assertTrue(query.matches(investigation(TODAY, "Closed", "Competitive", "Cheating - Fraud")));
+		assertFalse(query.isPastRange(TODAY, true));
+		assertFalse(query.isPastRange(TODAY, false));
+	}
+
+	@Test
+	public void testEnteredDateRange() {
+		InvestigationQuery query = new InvestigationQuery();
+		query.setEnteredFrom(new LocalDate(2015, 3, 1));
+		query.setEnteredTo(new LocalDate(2015, 3, 10));
+
+		assertFalse(query.isEnteredInRange(new LocalDate(2015, 2, 28)));
+		assertTrue(query.isEnteredInRange(new LocalDate(2015, 3, 1)));
+		assertTrue(query.isEnteredInRange(new LocalDate(2015, 3, 10)));
+		assertFalse(query.isEnteredInRange(new LocalDate(2015, 3, 11)));
+		// The entered date is not known until the 'view' tab is loaded when the list does not show it.
+		assertTrue(query.isEnteredInRange(null));
+
+		assertTrue(query.matches(investigation(new LocalDate(2015, 3, 5), null, null, null)));
+		assertFalse(query.matches(investigation(new LocalDate(2015, 2, 5), null, null, null)));
+	}
+
+	@Test
+	public void testPastRange() {
+		InvestigationQuery query = new InvestigationQuery();
+		query.setEnteredFrom(new LocalDate(2015, 3, 1));
+		query.setEnteredTo(new LocalDate(2015, 3, 10));
+
+		// Most recent first: only dates before the range end the list.
+		assertTrue(query.isPastRange(new LocalDate(2015, 2, 28), true));
+		assertFalse(query.isPastRange(new LocalDate(2015, 3, 1), true));
+		assertFalse(query.isPastRange(new LocalDate(2015, 3, 11), true));
+		// Oldest first: only dates after the range end the list.
+		assertTrue(query.isPastRange(new LocalDate(2015, 3, 11), false));
+		assertFalse(query.isPastRange(new LocalDate(2015, 3, 10), false));
+		assertFalse(query.isPastRange(new LocalDate(2015, 2, 28), false));
+		assertFalse(query.isPastRange(null, true));
+	}
+
+	@Test
+	public void testEnteredWithinDays() {
+		// Seven calendar days including today.
+		InvestigationQuery query = InvestigationQuery.enteredWithinDays(7, TODAY);
+		assertEquals(new LocalDate(2015, 3, 9), query.getEnteredFrom());
+		assertNull(query.getEnteredTo());
+		assertTrue(query.matches(investigation(TODAY, null, null, null)));
+		assertTrue(query.matches(investigation(new LocalDate(2015, 3, 9), null, null, null)));
+		assertFalse(query.matches(investigation(new LocalDate(2015, 3, 8), null, null, null)));
+		assertTrue(query.isPastRange(new LocalDate(2015, 3, 8), true));
+
+		query = InvestigationQuery.enteredWithinDays(1, TODAY);
+		assertTrue(query.matches(investigation(TODAY, null, null, null)));
+		assertFalse(query.matches(investigation(TODAY.minusDays(1), null, null, null)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEnteredWithinNoDays() {
+		InvestigationQuery.enteredWithinDays(0, TODAY);
+	}
+
+	@Test
+	public void testStatusesIgnoreCase() {
+		InvestigationQuery query = new InvestigationQuery();
+		query.getStatuses().add("Open");
+		query.getStatuses().add("Pending");
+
+		assertTrue(query.matches(investigation(TODAY, "open", null, null)));
+		assertTrue(query.matches(investigation(TODAY, "PENDING", null, null)));
+		assertFalse(query.matches(investigation(TODAY, "Closed", null, null)));
+		assertFalse(query.matches(investigation(TODAY, null, null, null)));
+	}
+
+	@Test
+	public void testEventTypesAndInfractions() {
+		InvestigationQuery query = new InvestigationQuery();
+		query.getEventTypes().add("Competitive");
+		query.getInfractions().add("cheating - fraud");
+
+		assertTrue(query.matches(investigation(TODAY, null, "competitive", "Cheating - Fraud")));
+		assertFalse(query.matches(investigation(TODAY, null, "Casual", "Cheating - Fraud")));
+		assertFalse(query.matches(investigation(TODAY, null, "Competitive", "Unsporting Conduct - Major")));
+		assertFalse(query.matches(investigation(TODAY, null, "Competitive", null)));
+
+		// Any one of the investigation infractions matches.
+		Investigation investigation = investigation(TODAY, null, "Competitive", "Unsporting Conduct - Major");
+		investigation.getInfractions().add("Cheating - Fraud");
+		assertTrue(query.matches(investigation));
+	}
+
+	private static Investigation investigation(LocalDate entered, String status, String eventType, String infraction) {
+		Investigation investigation = new Investigation();
+		investigation.setEnteredDate(entered);
+		investigation.setStatus(status);
+		investigation.setEventType(eventType);
+		if (infraction != null) {
+			investigation.getInfractions().add(infraction);
+		}
+		return investigation;
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+/**
+ * InvestigationStoreTest checks the versioning, compaction and crash recovery
+ * of the InvestigationStore.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class InvestigationStoreTest {
+
+	/* The offset of the clean flag in the index file header */
+	private static final int INDEX_CLEAN = 16;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = folder.newFolder("store");
+	}
+
+	@Test
+	public void testVersions() throws IOException {
+		InvestigationStore store = new InvestigationStore(directory);
+		try {
+			Investigation investigation = InvestigationCodecTest.investigation(100001);
+			assertEquals(1, store.put(investigation));
+			// Storing an unchanged investigation writes nothing.
+			long bytes = store.getTotalBytes();
+			assertEquals(1, store.put(investigation));
+			assertEquals(bytes, store.getTotalBytes());
+
+			investigation.setStatus("Closed");
+			assertEquals(2, store.put(investigation));
+			assertEquals(2, store.getVersion(100001));
+			assertEquals("Closed", store.get(100001).getStatus());
+			assertNull(store.get(100002));
+			assertEquals(1, store.size());
+		} finally {
+			store.close();
+		}
+
+		store = new InvestigationStore(directory);
+		try {
+			assertEquals(2, store.getVersion(100001));
+			assertEquals("Closed", store.get(100001).getStatus());
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testArenaStatementsAreUnchanged() throws IOException {
+		StatementTextArena arena = new StatementTextArena();
+		InvestigationStore store = new InvestigationStore(directory);
+		try {
+			Investigation investigation = InvestigationCodecTest.investigation(100001);
+			assertEquals(1, store.put(investigation));
+
+			// The same investigation scraped again with its text kept in an arena.
+			Investigation scraped = InvestigationCodecTest.investigation(100001);
+			for (Statement statement : scraped.getStatements()) {
+				statement.setStatement(statement.getStatement(), arena);
+			}
+			assertEquals(investigation, scraped);
+			long bytes = store.getTotalBytes();
+			assertEquals(1, store.put(scraped));
+			assertEquals(bytes, store.getTotalBytes());
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testIndexGrowsAndReopens() throws IOException {
+		InvestigationStore store = new InvestigationStore(directory);
+		try {
+			for (int i = 0; i < 2000; ++i) {
+				store.put(InvestigationCodecTest.investigation(100000 + i));
+			}
+			assertEquals(2000, store.size());
+		} finally {
+			store.close();
+		}
+
+		store = new InvestigationStore(directory);
+		try {
+			assertEquals(2000, store.size());
+			for (int i = 0; i < 2000; ++i) {
+				assertEquals(100000 + i, store.get(100000 + i).getId());
+			}
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testCompactionKeepsTheLatestVersion() throws IOException {
+		InvestigationStore store = new InvestigationStore(directory);
+		store.setSyncWrites(false);
+		store.setMaxSegmentBytes(4096);
+		try {
+			for (int version = 1; version <= 3; ++version) {
+				for (int i = 0; i < 50; ++i) {
+					Investigation investigation = InvestigationCodecTest.investigation(100000 + i);
+					investigation.setResolution("Resolution " + version);
+					assertEquals(version, store.put(investigation));
+				}
+			}
+			int segments = store.getSegmentCount();
+			long total = store.getTotalBytes();
+			assertTrue(store.getLiveBytes() < total / 2);
+
+			assertTrue(store.compact() > 0);
+			assertTrue(store.getSegmentCount() < segments);
+			assertTrue(store.getTotalBytes() < total);
+			assertLatest(store, 50, 3);
+		} finally {
+			store.close();
+		}
+
+		// The moved records are found both through the index and by rebuilding it.
+		store = new InvestigationStore(directory);
+		try {
+			assertLatest(store, 50, 3);
+		} finally {
+			store.close();
+		}
+		markIndexInUse();
+		store = new InvestigationStore(directory);
+		try {
+			assertLatest(store, 50, 3);
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testCompactionDeletesEmptySegments() throws IOException {
+		InvestigationStore store = new InvestigationStore(directory);
+		try {
+			store.put(InvestigationCodecTest.investigation(100001));
+		} finally {
+			store.close();
+		}
+		// An empty sealed segment, as left behind by truncating a torn segment.
+		File empty = new File(directory, "segment-00000000.log");
+		assertTrue(empty.createNewFile());
+
+		store = new InvestigationStore(directory);
+		try {
+			assertEquals(2, store.getSegmentCount());
+			store.compact();
+			assertEquals(1, store.getSegmentCount());
+			assertFalse(empty.exists());
+			assertNotNull(store.get(100001));
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testRecoveryTruncatesTornRecord() throws IOException {
+		InvestigationStore store = new InvestigationStore(directory);
+		try {
+			store.put(InvestigationCodecTest.investigation(100001));
+			store.put(InvestigationCodecTest.investigation(100002));
+		} finally {
+			store.close();
+		}
+		File segment = new File(directory, "segment-00000001.log");
+		long length = segment.length();
+
+		// A crash part way through writing a third record.
+		byte[] record = new byte[40];
+		new java.util.Random(1).nextBytes(record);
+		record[0] = 0x4A;
+		record[1] = 0x43;
+		record[2] = 0x52;
+		record[3] = 0x31;
+		append(segment, record);
+		markIndexInUse();
+
+		store = new InvestigationStore(directory);
+		try {
+			assertEquals(length, segment.length());
+			assertEquals(2, store.size());
+			assertNotNull(store.get(100001));
+			assertNotNull(store.get(100002));
+			assertEquals(1, store.put(InvestigationCodecTest.investigation(100003)));
+			assertEquals(3, store.size());
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testRecoveryDropsRecordFailingItsChecksum() throws IOException {
+		InvestigationStore store = new InvestigationStore(directory);
+		long length;
+		try {
+			Investigation investigation = InvestigationCodecTest.investigation(100001);
+			store.put(investigation);
+			length = store.getTotalBytes();
+			investigation.setStatus("Closed");
+			assertEquals(2, store.put(investigation));
+		} finally {
+			store.close();
+		}
+
+		// Corrupt the last byte of the second version.
+		File segment = new File(directory, "segment-00000001.log");
+		RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+		try {
+			raf.seek(raf.length() - 1);
+			int last = raf.read();
+			raf.seek(raf.length() - 1);
+			raf.write(last ^ 0xFF);
+		} finally {
+			raf.close();
+		}
+		markIndexInUse();
+
+		store = new InvestigationStore(directory);
+		try {
+			assertEquals(length, segment.length());
+			assertEquals(1, store.getVersion(100001));
+			assertEquals("Open", store.get(100001).getStatus());
+		} finally {
+			store.close();
+		}
+	}
+
+	private static void assertLatest(InvestigationStore store, int count, long version) throws IOException {
+		assertEquals(count, store.size());
+		for (int i = 0; i < count; ++i) {
+			assertEquals(version, store.getVersion(100000 + i));
+			assertEquals("Resolution " + version, store.get(100000 + i).getResolution());
+		}
+	}
+
+	private static void append(File file, byte[] data) throws IOException {
+		OutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * markIndexInUse clears the clean flag of the index as if the store had
+	 * not been closed.
+	 */
+	private void markIndexInUse() throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(new File(directory, "investigations.idx"), "rw");
+		try {
+			raf.seek(INDEX_CLEAN);
+			raf.writeInt(0);
+		} finally {
+			raf.close();
+		}
+	}
+
+}
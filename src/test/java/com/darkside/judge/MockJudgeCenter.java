@@ -0,0 +1,893 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.text.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+import org.joda.time.*;
+import com.sun.net.httpserver.*;
+
+/**
+ * MockJudgeCenter is a local HTTP server that imitates the pages of the Judge
+ * Center that the Reporter scrapes: the login page, the SSO success redirect
+ * and the ASP.NET investigations list and 'view' pages.  Page element names
+ * and identifiers are taken from the same page properties the Reporter uses.
+ * <p>
+ * Postback state is carried in the __VIEWSTATE form field exactly as ASP.NET
+ * does, so every page can be posted back independently of the pages loaded
+ * after it.  The investigations are generated deterministically from their
+ * index so any number of them can be served without holding them in memory.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class MockJudgeCenter implements Closeable {
+
+	/* The login page path */
+	private static final String PATH_LOGIN = "/login.aspx";
+	/* The investigations page path */
+	private static final String PATH_INVESTIGATIONS = "/investigations.aspx";
+	/* The session cookie name */
+	private static final String SESSION_COOKIE = "MockJudgeCenterSession";
+
+	/* The tab switching postback target */
+	static final String TARGET_TAB = "_dpmt$_mt$ts";
+	/* The next page postback target */
+	static final String TARGET_NEXT_PAGE = "_dpmt$_mt$ctl07$_ucDataGridPagerLinksBottom$lkbNext";
+	/* The page index postback target and argument */
+	static final String TARGET_PAGE = "_dpmt$_mt$ctl07$_ucDataGridPagerLinksBottom$lkbPage";
+	static final String ARGUMENT_PAGE = "Page${0,number,0}";
+
+	/**
+	 * Malformation is the way an investigation 'view' tab is served malformed.
+	 */
+	public enum Malformation {
+		/** The summary shows the identifier of another investigation. */
+		ID_MISMATCH,
+		/** The first statement is missing its entered by line. */
+		MISSING_STATEMENT_LINE,
+		/** The sanctioning number row is missing its 'Key: Value' content. */
+		MISSING_KEY_VALUE
+	}
+
+	/* The first investigation identifier */
+	private static final long FIRST_ID = 100000;
+	/* The values used to generate investigations */
+	private static final String[] STATUSES = { "Open", "Pending Review", "Closed" };
+	private static final String[] RESOLUTIONS = { "", "Suspended", "No Action", "Warning" };
+	private static final String[] INFRACTIONS = { "Cheating - Fraud", "Cheating - Manipulation of Game Materials", "Unsporting Conduct - Major", "Unsporting Conduct - Theft of Tournament Materials", "Cheating - Bribery and Wagering" };
+	private static final String[] EVENT_TYPES = { "Grand Prix", "Pro Tour Qualifier", "Friday Night Magic", "Regional Championship" };
+	private static final String[] ROLES = { "Player", "Judge", "Spectator", "Tournament Organizer" };
+	private static final String[] CITIES = { "Seattle", "Toronto", "Lyon", "Osaka", "Sydney", "Chicago" };
+	private static final String[] COUNTRIES = { "United States", "Canada", "France", "Japan", "Australia", "United States" };
+	private static final String[] NAMES = { "Alex", "Blake", "Casey", "Devon", "Emerson", "Finley", "Harper", "Jordan", "Kendall", "Morgan", "Quinn", "Riley" };
+	private static final String[] SURNAMES = { "Anderson", "Brooks", "Chen", "Dubois", "Eriksen", "Fujita", "Garcia", "Hughes", "Ivanov", "Kowalski" };
+	private static final String[] WORDS = ("the player drew an extra card during the draw step and then shuffled "
+			+ "their library while the opponent was looking away i called a judge when i noticed the "
+			+ "hand size was wrong after mulligan decisions he said he did not know how many cards were "
+			+ "in hand but the deck check showed marked sleeves on several lands and spells").split(" ");
+
+	/* The login page properties */
+	private final LoginPageProperties loginProperties;
+	/* The investigations list page properties */
+	private final InvestigationsPageProperties listProperties;
+	/* The investigation 'view' page properties */
+	private final InvestigationPageProperties caseProperties;
+	/* The raw properties the page properties were read from */
+	private final Properties loginResource;
+	private final Properties casesResource;
+
+	/* The number of investigations served */
+	private final int caseCount;
+	/* The seed the investigations are generated from */
+	@lombok.Setter
+	private long seed = 42;
+	/* The password accepted for any DCI number, or null to accept any password */
+	@lombok.Setter
+	private String password;
+	/* The delay added to every response in milliseconds */
+	@lombok.Setter
+	private int latencyMillis;
+	/* The fraction of investigation 'view' postbacks that fail with a server error */
+	@lombok.Setter
+	private double errorRate;
+	/* Whether the Reporter is configured to select list pages by index; the mock serves both */
+	@lombok.Setter
+	private boolean pageLinks = true;
+	/* Whether the list is sorted most recently entered first; otherwise the entered dates are scrambled and no order is configured */
+	@lombok.Setter
+	private boolean sortedByEnteredDate = true;
+	/* The list page size the Reporter is configured to select (10, 25, 50 or 100) or null for the bundled size */
+	@lombok.Setter
+	private Integer listPageSize;
+	/* The injected failures; seeded so that a single session run fails the same postbacks each time */
+	private Random errorRandom;
+	/* The investigation ids whose 'view' postbacks always fail with a server error */
+	private final Set<Long> failingIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+	/* The investigation ids whose 'view' tabs are served malformed and how many more times */
+	private final Map<Long, Malformation> malformations = new ConcurrentHashMap<Long, Malformation>();
+	private final Map<Long, AtomicInteger> malformedCounts = new ConcurrentHashMap<Long, AtomicInteger>();
+	/* The list pages whose page index postbacks fail with a server error and which (one based) postbacks fail */
+	private final Map<Integer, Set<Integer>> failingPages = new ConcurrentHashMap<Integer, Set<Integer>>();
+	/* The number of page index postbacks of each list page */
+	private final Map<Integer, AtomicInteger> pageSelections = new ConcurrentHashMap<Integer, AtomicInteger>();
+	/* Whether responses are gzip compressed for clients that accept it */
+	@lombok.Setter
+	private boolean compression = true;
+
+	/* The underlying HTTP server */
+	private HttpServer server;
+	/* The authenticated sessions keyed by session cookie value */
+	private final Map<String, String> sessions = new ConcurrentHashMap<String, String>();
+	/* The request and byte counters */
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	/**
+	 * Construct a new MockJudgeCenter instance serving the specified number of
+	 * investigations.
+	 * @param caseCount The number of investigations to serve.
+	 * @throws IOException
+	 */
+	public MockJudgeCenter(int caseCount) throws IOException {
+		this.caseCount = caseCount;
+		loginResource = loadResource("com/darkside/judge/login_page.properties");
+		casesResource = loadResource("com/darkside/judge/investigations_page.properties");
+		// The mock lists the entered date, most recent first.
+		casesResource.setProperty("investigations.page.table.entered_date.column", "2");
+		casesResource.setProperty("investigations.page.table.entered_date.order", "descending");
+		// The mock pager also selects pages by index.
+		casesResource.setProperty("investigations.page.link.page.target", TARGET_PAGE);
+		casesResource.setProperty("investigations.page.link.page.argument", ARGUMENT_PAGE);
+		loginProperties = new LoginPageProperties(loginResource);
+		listProperties = new InvestigationsPageProperties(casesResource);
+		caseProperties = new InvestigationPageProperties(casesResource);
+	}
+
+	/**
+	 * Start serving on an ephemeral port of the loopback interface.
+	 * @throws IOException
+	 */
+	public void start() throws IOException {
+		// Disable Nagle's algorithm; otherwise every response waits on the client's delayed ACK.
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		errorRandom = new Random(seed);
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					dispatch(exchange);
+				} catch (RuntimeException e) {
+					log.error("Mock request failed", e);
+					respond(exchange, 500, "text/plain", "Server Error");
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.start();
+		log.info("Mock Judge Center serving " + caseCount + " investigations @" + getBaseUri());
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	public void close() {
+		if (server != null) {
+			server.stop(0);
+			((ExecutorService) server.getExecutor()).shutdownNow();
+			server = null;
+		}
+	}
+
+	/**
+	 * Get the base URI of the running server.
+	 * @return The base URI without a trailing slash.
+	 */
+	public String getBaseUri() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * Get the login page properties pointing at this server.
+	 * @return The LoginPageProperties instance for this server.
+	 * @throws MalformedURLException
+	 */
+	public LoginPageProperties getLoginProperties() throws MalformedURLException {
+		Properties properties = new Properties();
+		properties.putAll(loginResource);
+		properties.setProperty("login.page.uri", getBaseUri() + PATH_LOGIN + "?ReturnURL=" + PATH_INVESTIGATIONS);
+		properties.setProperty("login.page.success.url", getBaseUri() + PATH_INVESTIGATIONS + "?action=opis_sso");
+		return new LoginPageProperties(properties);
+	}
+
+	/**
+	 * Get the investigations list page properties pointing at this server.
+	 * @return The InvestigationsPageProperties instance for this server.
+	 */
+	public InvestigationsPageProperties getListProperties() {
+		Properties properties = new Properties();
+		properties.putAll(casesResource);
+		properties.setProperty("investigations.page.uri", getBaseUri() + PATH_INVESTIGATIONS);
+		if (listPageSize != null) {
+			properties.setProperty("investigations.page.input.page_size.value", String.valueOf(listPageSize));
+		}
+		if (!sortedByEnteredDate) {
+			properties.remove("investigations.page.table.entered_date.order");
+		}
+		if (!pageLinks) {
+			properties.remove("investigations.page.link.page.target");
+			properties.remove("investigations.page.link.page.argument");
+		}
+		return new InvestigationsPageProperties(properties);
+	}
+
+	/**
+	 * Get the investigation 'view' page properties for this server.
+	 * @return The InvestigationPageProperties instance for this server.
+	 */
+	public InvestigationPageProperties getCaseProperties() {
+		return caseProperties;
+	}
+
+	/**
+	 * Create a Reporter instance that scrapes this server.
+	 * @return The new Reporter instance.
+	 * @throws MalformedURLException
+	 */
+	public Reporter createReporter() throws MalformedURLException {
+		return new Reporter(getLoginProperties(), getListProperties(), getCaseProperties());
+	}
+
+	/**
+	 * Create a Reporter instance that scrapes this server using the pooled
+	 * transport configured by the provided properties.
+	 * @param transportProperties The transport properties or null to use the
+	 * 		default HtmlUnit transport.
+	 * @return The new Reporter instance.
+	 * @throws MalformedURLException
+	 */
+	public Reporter createReporter(TransportProperties transportProperties) throws MalformedURLException {
+		return new Reporter(getLoginProperties(), getListProperties(), getCaseProperties(), transportProperties);
+	}
+
+	/**
+	 * Make every 'view' postback of the specified investigation fail with a
+	 * server error.
+	 * @param id The investigation identifier.
+	 */
+	public void addFailingInvestigation(long id) {
+		failingIds.add(id);
+	}
+
+	/**
+	 * Serve the 'view' tab of the specified investigation malformed for its
+	 * next postbacks; later postbacks are served intact.
+	 * @param id The investigation identifier.
+	 * @param malformation The way the 'view' tab is malformed.
+	 * @param times The number of postbacks served malformed.
+	 */
+	public void addMalformedInvestigation(long id, Malformation malformation, int times) {
+		malformations.put(id, malformation);
+		malformedCounts.put(id, new AtomicInteger(times));
+	}
+
+	/**
+	 * Make the specified page index postbacks of a list page fail with a
+	 * server error; the other postbacks succeed.
+	 * @param page The one based list page number.
+	 * @param selections The one based numbers of the postbacks that fail.
+	 */
+	public void addFailingListPage(int page, int... selections) {
+		Set<Integer> failing = new HashSet<Integer>();
+		for (int selection : selections) {
+			failing.add(selection);
+		}
+		failingPages.put(page, failing);
+	}
+
+	/**
+	 * Get the number of times the specified list page was selected by its
+	 * page index, including failed selections.
+	 * @param page The one based list page number.
+	 * @return The number of page index postbacks.
+	 */
+	public int getPageSelections(int page) {
+		AtomicInteger selections = pageSelections.get(page);
+		return selections != null ? selections.get() : 0;
+	}
+
+	/**
+	 * Get the identifier of the investigation at the specified position of
+	 * the list; the list is sorted with the most recently entered first.
+	 * @param index The zero based position in the list.
+	 * @return The investigation identifier.
+	 */
+	public long getInvestigationId(int index) {
+		return FIRST_ID + caseCount - index;
+	}
+
+	/**
+	 * Get the entered date of the investigation at the specified position of
+	 * the list.
+	 * @param index The zero based position in the list.
+	 * @return The entered date.
+	 */
+	public LocalDate getEnteredDate(int index) {
+		return entered(index).toLocalDate();
+	}
+
+	/*
+	 * entered returns the entered date and time of the investigation at the
+	 * list position; unsorted lists scramble the positions so that the dates
+	 * are out of order within and across pages.
+	 */
+	private LocalDateTime entered(int index) {
+		int position = sortedByEnteredDate ? index : (int) (index * 7919L % caseCount);
+		return new LocalDateTime(2015, 6, 1, 12, 0).minusHours(position * 7);
+	}
+
+	/**
+	 * Get the number of investigations served.
+	 * @return The number of investigations.
+	 */
+	public int getCaseCount() {
+		return caseCount;
+	}
+
+	/**
+	 * Get the number of requests handled.
+	 * @return The number of requests.
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * Get the number of injected errors.
+	 * @return The number of error and malformed responses.
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Get the number of response body bytes sent after compression.
+	 * @return The number of bytes sent.
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	/**
+	 * Reset the request, error and byte counters.
+	 */
+	public void resetCounters() {
+		requests.set(0);
+		errors.set(0);
+		bytesSent.set(0);
+	}
+
+	/*
+	 * dispatch routes the request to the login or investigations page.
+	 */
+	private void dispatch(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		if (latencyMillis > 0) {
+			try {
+				Thread.sleep(latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		String path = exchange.getRequestURI().getPath();
+		if (PATH_LOGIN.equals(path)) {
+			handleLogin(exchange);
+		} else if (PATH_INVESTIGATIONS.equals(path)) {
+			handleInvestigations(exchange);
+		} else {
+			respond(exchange, 404, "text/plain", "Not Found");
+		}
+	}
+
+	/*
+	 * handleLogin serves the login form and processes the login postback.
+	 */
+	private void handleLogin(HttpExchange exchange) throws IOException {
+		if ("POST".equals(exchange.getRequestMethod())) {
+			Map<String, String> form = readForm(exchange);
+			String userId = form.get(loginProperties.getInputUserId());
+			String passwd = form.get(loginProperties.getInputPasswd());
+			if (userId != null && !userId.isEmpty() && passwd != null && (password == null || password.equals(passwd))) {
+				String session = UUID.randomUUID().toString();
+				sessions.put(session, userId);
+				exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session + "; path=/");
+				redirect(exchange, getBaseUri() + PATH_INVESTIGATIONS + "?action=opis_sso");
+				return;
+			}
+			respond(exchange, 200, "text/html; charset=utf-8", loginPage("Invalid DCI number or password."));
+			return;
+		}
+		respond(exchange, 200, "text/html; charset=utf-8", loginPage(null));
+	}
+
+	/*
+	 * handleInvestigations serves the investigations page and applies the
+	 * ASP.NET postback events against the state carried in the view state.
+	 */
+	private void handleInvestigations(HttpExchange exchange) throws IOException {
+		String userId = sessionUser(exchange);
+		if (userId == null) {
+			redirect(exchange, getLoginProperties().getPageUri());
+			return;
+		}
+
+		ViewState state = new ViewState();
+		Malformation malformation = null;
+		if ("POST".equals(exchange.getRequestMethod())) {
+			Map<String, String> form = readForm(exchange);
+			state = ViewState.decode(form.get("__VIEWSTATE"));
+			String target = form.get(listProperties.getFormInputTarget());
+			String argument = form.get(listProperties.getFormInputArgument());
+			if (target == null) {
+				target = "";
+			}
+
+			if (TARGET_TAB.equals(target)) {
+				state.tab = argument;
+			} else if (target.equals(listProperties.getInputPageSize())) {
+				state.pageSize = Integer.parseInt(form.get(listProperties.getInputPageSize()));
+				state.pageIndex = 0;
+			} else if (target.equals(listProperties.getLinkPageTarget())) {
+				int page = selectedPage(argument);
+				if (page < 1 || page > pageCount(state.pageSize)) {
+					respond(exchange, 500, "text/plain", "Server Error: invalid page " + argument);
+					return;
+				}
+				pageSelections.putIfAbsent(page, new AtomicInteger());
+				int selection = pageSelections.get(page).incrementAndGet();
+				Set<Integer> failing = failingPages.get(page);
+				if (failing != null && failing.contains(selection)) {
+					errors.incrementAndGet();
+					respond(exchange, 500, "text/plain", "Server Error: injected failure");
+					return;
+				}
+				state.tab = listProperties.getLinkTab();
+				state.pageIndex = page - 1;
+			} else if (TARGET_NEXT_PAGE.equals(target)) {
+				// Paging always returns to the list even when posted from the 'view' tab.
+				state.tab = listProperties.getLinkTab();
+				state.pageIndex = Math.min(state.pageIndex + 1, pageCount(state.pageSize) - 1);
+			} else if (selectedRow(target) >= 0) {
+				int index = state.pageIndex * state.pageSize + selectedRow(target);
+				if (index >= Math.min(caseCount, (state.pageIndex + 1) * state.pageSize)) {
+					respond(exchange, 500, "text/plain", "Server Error: invalid row " + target);
+					return;
+				}
+				if (failingIds.contains(getInvestigationId(index)) || (errorRate > 0 && injectError())) {
+					errors.incrementAndGet();
+					respond(exchange, 500, "text/plain", "Server Error: injected failure");
+					return;
+				}
+				state.tab = listProperties.getViewTab();
+				state.selected = index;
+				malformation = malformation(getInvestigationId(index));
+			}
+		}
+
+		respond(exchange, 200, "text/html; charset=utf-8", investigationsPage(userId, state, malformation));
+	}
+
+	/*
+	 * malformation returns the way the 'view' tab of the investigation is to
+	 * be served malformed this time or null to serve it intact.
+	 */
+	private Malformation malformation(long id) {
+		AtomicInteger count = malformedCounts.get(id);
+		if (count != null && count.getAndDecrement() > 0) {
+			errors.incrementAndGet();
+			return malformations.get(id);
+		}
+		return null;
+	}
+
+	/*
+	 * injectError decides whether the current 'view' postback fails.
+	 */
+	private boolean injectError() {
+		synchronized (errorRandom) {
+			return errorRandom.nextDouble() < errorRate;
+		}
+	}
+
+	/*
+	 * selectedRow returns the zero based row index on the current page for a
+	 * row selection postback target or -1 if the target is not a row.
+	 */
+	private int selectedRow(String target) {
+		try {
+			Object[] parsed = new MessageFormat(listProperties.getFormInputTargetValue()).parse(target);
+			// Table row 1 (the first row after the header) is posted back as ctl03.
+			return ((Number) parsed[0]).intValue() - 3;
+		} catch (ParseException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * selectedPage returns the one based page number of a page index postback
+	 * argument or -1 if the argument is not a page index.
+	 */
+	private int selectedPage(String argument) {
+		try {
+			Object[] parsed = new MessageFormat(listProperties.getLinkPageArgument()).parse(argument != null ? argument : "");
+			return ((Number) parsed[0]).intValue();
+		} catch (ParseException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * pageCount returns the number of list pages for the provided page size.
+	 */
+	private int pageCount(int pageSize) {
+		return Math.max(1, (caseCount + pageSize - 1) / pageSize);
+	}
+
+	/*
+	 * loginPage renders the login page with an optional error message.
+	 */
+	private String loginPage(String error) {
+		StringBuilder html = new StringBuilder(1024);
+		html.append("<html><head><title>Login - Wizards of the Coast</title></head><body>\n");
+		html.append("<form name=\"").append(loginProperties.getFormName()).append("\" id=\"").append(loginProperties.getFormName()).append("\" method=\"post\" action=\"").append(PATH_LOGIN).append("\">\n");
+		html.append("DCI Number: <input type=\"text\" name=\"").append(loginProperties.getInputUserId()).append("\"><br>\n");
+		html.append("Password: <input type=\"password\" name=\"").append(loginProperties.getInputPasswd()).append("\"><br>\n");
+		html.append("<select name=\"ctl00$phMainContent$LanguageDropDown\"><option value=\"en\" selected>English</option></select>\n");
+		html.append("<input type=\"submit\" name=\"").append(loginProperties.getInputSubmit()).append("\" value=\"Login\">\n");
+		if (error != null) {
+			html.append("<span id=\"").append(loginProperties.getInputErrors()).append("\">").append(error).append("</span>\n");
+		}
+		html.append("</form></body></html>\n");
+		return html.toString();
+	}
+
+	/*
+	 * investigationsPage renders the investigations page for the provided state
+	 * showing the list on the 'select' tab and the selected case otherwise.
+	 */
+	private String investigationsPage(String userId, ViewState state, Malformation malformation) {
+		String formName = listProperties.getFormName();
+		StringBuilder html = new StringBuilder(32 * 1024);
+		html.append("<html><head><title>Investigations - Wizards of the Coast Judge Center</title>\n");
+		html.append("<script type=\"text/javascript\">\n");
+		html.append("function __doPostBack(eventTarget, eventArgument) {\n");
+		html.append("  var theForm = document.forms['").append(formName).append("'];\n");
+		html.append("  theForm.").append(listProperties.getFormInputTarget()).append(".value = eventTarget;\n");
+		html.append("  theForm.").append(listProperties.getFormInputArgument()).append(".value = eventArgument;\n");
+		html.append("  theForm.submit();\n");
+		html.append("}\n</script></head><body>\n");
+		html.append("<form name=\"").append(formName).append("\" id=\"").append(formName).append("\" method=\"post\" action=\"").append(PATH_INVESTIGATIONS).append("\">\n");
+		hidden(html, listProperties.getFormInputTarget(), "");
+		hidden(html, listProperties.getFormInputArgument(), "");
+		hidden(html, "__VIEWSTATE", state.encode());
+		boolean selectTab = !listProperties.getViewTab().equals(state.tab) || state.selected < 0;
+		hidden(html, listProperties.getFormInputState(), selectTab ? "3" : "4");
+		html.append("<span id=\"").append(listProperties.getSpanName()).append("\">Judge ").append(userId).append("</span>\n");
+		html.append("<div class=\"tabs\">");
+		html.append("<a href=\"javascript:__doPostBack('").append(TARGET_TAB).append("','").append(listProperties.getLinkTab()).append("')\">").append(listProperties.getLinkTab()).append("</a> ");
+		html.append("<a href=\"javascript:__doPostBack('").append(TARGET_TAB).append("','").append(listProperties.getViewTab()).append("')\">").append(listProperties.getViewTab()).append("</a>");
+		html.append("</div>\n");
+
+		if (selectTab) {
+			listContent(html, state);
+		} else {
+			caseContent(html, state.selected, malformation);
+		}
+
+		html.append("</form></body></html>\n");
+		return html.toString();
+	}
+
+	/*
+	 * listContent renders the current page of the investigation list.
+	 */
+	private void listContent(StringBuilder html, ViewState state) {
+		int first = state.pageIndex * state.pageSize;
+		int last = Math.min(caseCount, first + state.pageSize);
+
+		html.append("<div class=\"").append(listProperties.getNumInvestigationsDivClass()).append("\">Displaying ").append(first + 1).append(" - ").append(last).append(" of ").append(caseCount).append(".</div>\n");
+		html.append("<select name=\"").append(listProperties.getInputPageSize()).append("\" onchange=\"__doPostBack('").append(listProperties.getInputPageSize()).append("','')\">");
+		for (int size : new int[] { 10, 25, 50, 100 }) {
+			html.append("<option value=\"").append(size).append('"').append(size == state.pageSize ? " selected" : "").append('>').append(size).append("</option>");
+		}
+		html.append("</select>\n");
+
+		html.append("<table id=\"").append(listProperties.getTable()).append("\">\n");
+		html.append("<tr><th>ID</th><th>Incident Date</th><th>Entered Date</th><th>Entered By</th><th>Subject</th><th>REL</th><th>Event Type</th><th>City</th><th>Country</th><th>Infraction</th><th>Status</th><th>Resolution</th></tr>\n");
+		for (int index = first; index < last; ++index) {
+			Case c = new Case(index);
+			String target = MessageFormat.format(listProperties.getFormInputTargetValue(), index - first + 3);
+			html.append("<tr class=\"").append(listProperties.getTableRowClass()).append("\" onclick=\"javascript:__doPostBack('").append(target).append("','").append(listProperties.getFormInputArgumentValue()).append("')\">");
+			cell(html, String.valueOf(c.id));
+			cell(html, "Date(\"" + formatDate(c.incident) + "\")");
+			cell(html, "Date(\"" + formatDate(c.entered) + "\")");
+			cell(html, c.enteredBy);
+			cell(html, c.subject);
+			cell(html, c.eventRel);
+			cell(html, c.eventType);
+			cell(html, c.city);
+			cell(html, c.country);
+			cell(html, c.infractions[0]);
+			cell(html, c.status);
+			cell(html, c.resolution);
+			html.append("</tr>\n");
+		}
+		html.append("</table>\n");
+
+		html.append("<div class=\"pager\">");
+		for (int page = 1; page <= pageCount(state.pageSize); ++page) {
+			String argument = MessageFormat.format(listProperties.getLinkPageArgument(), page);
+			html.append("<a href=\"javascript:__doPostBack('").append(listProperties.getLinkPageTarget()).append("','").append(argument).append("')\">").append(page).append("</a> ");
+		}
+		if (state.pageIndex + 1 < pageCount(state.pageSize)) {
+			html.append("<a id=\"").append(listProperties.getLinkNextPage()).append("\" href=\"javascript:__doPostBack('").append(TARGET_NEXT_PAGE).append("','')\">Next &gt;</a>");
+		}
+		html.append("</div>\n");
+	}
+
+	/*
+	 * caseContent renders the 'view' tab content of the selected investigation,
+	 * malformed in the provided way unless it is null.
+	 */
+	private void caseContent(StringBuilder html, int index, Malformation malformation) {
+		Case c = new Case(index);
+
+		html.append("<table id=\"").append(caseProperties.getSummaryTable()).append("\">\n");
+		summaryRow(html, "Investigation #" + (malformation == Malformation.ID_MISMATCH ? c.id + 1 : c.id));
+		summaryRow(html, "Incident Date: Date(\"" + formatDate(c.incident) + "\")");
+		summaryRow(html, "Entered Date: Date(\"" + formatDate(c.entered) + "\")");
+		summaryRow(html, malformation == Malformation.MISSING_KEY_VALUE ? "Sanctioning Number" : "Sanctioning Number: " + c.sanctioningNo);
+		summaryRow(html, "Entered By: " + c.enteredBy);
+		summaryRow(html, "Entered By DCI: " + c.enteredDciNo);
+		summaryRow(html, "Subject: " + c.subject);
+		summaryRow(html, "Subject DCI: " + c.subjectDciNo);
+		summaryRow(html, "Role: " + c.subjectRole);
+		html.append("</table>\n");
+
+		html.append("<table id=\"").append(caseProperties.getWitnessTable()).append("\">\n<tr><th>Name</th><th>DCI</th><th>Role</th></tr>\n");
+		for (int i = 0; i < c.witnessNames.length; ++i) {
+			html.append("<tr>");
+			cell(html, c.witnessNames[i]);
+			cell(html, String.valueOf(c.witnessDciNos[i]));
+			cell(html, c.witnessRoles[i]);
+			html.append("</tr>\n");
+		}
+		html.append("</table>\n");
+
+		html.append("<table id=\"").append(caseProperties.getInfractionTable()).append("\">\n<tr><th>Infraction</th></tr>\n");
+		for (String infraction : c.infractions) {
+			html.append("<tr>");
+			cell(html, infraction);
+			html.append("</tr>\n");
+		}
+		html.append("</table>\n");
+
+		html.append("<table id=\"").append(caseProperties.getStatementTable()).append("\">\n<tr><th>#</th><th>Witness</th><th>Statement</th></tr>\n");
+		for (int i = 0; i < c.statements.length; ++i) {
+			html.append("<tr>");
+			cell(html, String.valueOf(i + 1));
+			String enteredBy = malformation == Malformation.MISSING_STATEMENT_LINE && i == 0 ? "" : "\nEntered By: " + c.witnessNames[i];
+			cell(html, c.witnessNames[i] + "\nDate(\"" + formatDate(c.entered.plusHours(i)) + "\")" + enteredBy);
+			cell(html, c.statements[i]);
+			html.append("</tr>\n");
+		}
+		html.append("</table>\n");
+	}
+
+	/*
+	 * Case is a generated investigation; every value is derived from the index.
+	 */
+	private final class Case {
+		final long id;
+		final LocalDateTime entered;
+		final LocalDateTime incident;
+		final String sanctioningNo;
+		final String enteredBy;
+		final long enteredDciNo;
+		final String subject;
+		final long subjectDciNo;
+		final String subjectRole;
+		final String eventRel;
+		final String eventType;
+		final String city;
+		final String country;
+		final String status;
+		final String resolution;
+		final String[] infractions;
+		final String[] witnessNames;
+		final long[] witnessDciNos;
+		final String[] witnessRoles;
+		final String[] statements;
+
+		Case(int index) {
+			Random random = new Random(seed * 31 + index);
+			id = getInvestigationId(index);
+			entered = entered(index);
+			incident = entered.minusDays(random.nextInt(10)).withTime(10 + random.nextInt(8), random.nextInt(60), 0, 0);
+			sanctioningNo = String.format("15-%02d-%06d", 1 + random.nextInt(12), random.nextInt(1000000));
+			enteredBy = name(random);
+			enteredDciNo = dciNo(random);
+			subject = name(random);
+			subjectDciNo = dciNo(random);
+			subjectRole = ROLES[0];
+			eventRel = random.nextBoolean() ? "Competitive" : "Professional";
+			eventType = pick(random, EVENT_TYPES);
+			int location = random.nextInt(CITIES.length);
+			city = CITIES[location];
+			country = COUNTRIES[location];
+			status = pick(random, STATUSES);
+			resolution = "Closed".equals(status) ? pick(random, RESOLUTIONS) : "";
+			infractions = new String[1 + random.nextInt(2)];
+			for (int i = 0; i < infractions.length; ++i) {
+				infractions[i] = pick(random, INFRACTIONS);
+			}
+			int witnesses = 1 + random.nextInt(3);
+			witnessNames = new String[witnesses];
+			witnessDciNos = new long[witnesses];
+			witnessRoles = new String[witnesses];
+			statements = new String[witnesses];
+			for (int i = 0; i < witnesses; ++i) {
+				witnessNames[i] = name(random) + " " + (i + 1);
+				witnessDciNos[i] = dciNo(random);
+				witnessRoles[i] = pick(random, ROLES);
+				StringBuilder text = new StringBuilder();
+				for (int w = 20 + random.nextInt(180); w > 0; --w) {
+					text.append(pick(random, WORDS)).append(w % 17 == 0 ? ".\n" : " ");
+				}
+				statements[i] = text.toString().trim();
+			}
+		}
+	}
+
+	/*
+	 * ViewState is the postback state carried in the __VIEWSTATE form field.
+	 */
+	private static final class ViewState {
+		String tab = "SELECT";
+		int pageIndex = 0;
+		int pageSize = 25;
+		int selected = -1;
+
+		String encode() {
+			String value = tab + "|" + pageIndex + "|" + pageSize + "|" + selected;
+			return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		static ViewState decode(String encoded) {
+			ViewState state = new ViewState();
+			if (encoded != null && !encoded.isEmpty()) {
+				String[] parts = new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8).split("\\|");
+				state.tab = parts[0];
+				state.pageIndex = Integer.parseInt(parts[1]);
+				state.pageSize = Integer.parseInt(parts[2]);
+				state.selected = Integer.parseInt(parts[3]);
+			}
+			return state;
+		}
+	}
+
+	private String formatDate(LocalDateTime date) {
+		return listProperties.getTableDateFormat().print(date);
+	}
+
+	private static String name(Random random) {
+		return pick(random, NAMES) + " " + pick(random, SURNAMES);
+	}
+
+	private static long dciNo(Random random) {
+		return 1000000L + random.nextInt(9000000);
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static void hidden(StringBuilder html, String name, String value) {
+		html.append("<input type=\"hidden\" name=\"").append(name).append("\" id=\"").append(name).append("\" value=\"").append(value).append("\">\n");
+	}
+
+	private static void cell(StringBuilder html, String content) {
+		html.append("<td>").append(escape(content)).append("</td>");
+	}
+
+	private static void summaryRow(StringBuilder html, String content) {
+		html.append("<tr>");
+		cell(html, content);
+		html.append("</tr>\n");
+	}
+
+	private static String escape(String content) {
+		return content.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+
+	/*
+	 * sessionUser returns the user of the session cookie or null if the
+	 * request does not carry an authenticated session.
+	 */
+	private String sessionUser(HttpExchange exchange) {
+		List<String> cookies = exchange.getRequestHeaders().get("Cookie");
+		if (cookies != null) {
+			for (String header : cookies) {
+				for (String cookie : header.split(";\\s*")) {
+					if (cookie.startsWith(SESSION_COOKIE + "=")) {
+						return sessions.get(cookie.substring(SESSION_COOKIE.length() + 1));
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * readForm reads the url encoded form fields from the request body.
+	 */
+	private static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		InputStream in = exchange.getRequestBody();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) > 0) {
+			body.write(buffer, 0, read);
+		}
+
+		Map<String, String> form = new HashMap<String, String>();
+		for (String pair : new String(body.toByteArray(), StandardCharsets.ISO_8859_1).split("&")) {
+			int separator = pair.indexOf('=');
+			if (separator > 0) {
+				form.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"), URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+			}
+		}
+		return form;
+	}
+
+	private static void redirect(HttpExchange exchange, String location) throws IOException {
+		exchange.getResponseHeaders().add("Location", location);
+		exchange.sendResponseHeaders(302, -1);
+	}
+
+	private void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (compression && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+			GZIPOutputStream out = new GZIPOutputStream(compressed);
+			out.write(bytes);
+			out.close();
+			bytes = compressed.toByteArray();
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+		bytesSent.addAndGet(bytes.length);
+	}
+
+	private static Properties loadResource(String resourceId) throws IOException {
+		Properties properties = new Properties();
+		properties.load(MockJudgeCenter.class.getClassLoader().getResourceAsStream(resourceId));
+		return properties;
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+
+/**
+ * MockJudgeCenterHarness is an end-to-end load-test harness that runs the
+ * Reporter against a local MockJudgeCenter and reports the throughput of the
+ * complete login, list and 'view' page scrape.  The Reporter uses the pooled
+ * transport configured by the bundled transport properties, as it does when
+ * scraping the Judge Center.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class MockJudgeCenterHarness {
+
+	/** The bundled transport property file resource identifier. */
+	static final String RESOURCE_TRANSPORT_PROPERTIES = "com/darkside/judge/transport.properties";
+
+	/**
+	 * Run the Reporter against a local MockJudgeCenter.
+	 * @param args The number of investigations (default 1000), the response
+	 * 		latency in milliseconds (default 0), the 'view' postback error
+	 * 		rate (default 0.0) and the number of list sessions (default 1).
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		TransportProperties transport = new TransportProperties(RESOURCE_TRANSPORT_PROPERTIES);
+		int cases = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int latency = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+		double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+		int listSessions = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+		MockJudgeCenter center = new MockJudgeCenter(cases);
+		center.setLatencyMillis(latency);
+		center.setErrorRate(errorRate);
+		center.start();
+		try {
+			Reporter reporter = center.createReporter(transport);
+			reporter.setListSessions(listSessions);
+			Result result = run(center, reporter);
+			log.info(result.toString());
+			log.info("Transport: " + reporter.getTransportStatistics());
+		} finally {
+			center.close();
+		}
+	}
+
+	/**
+	 * Run the provided Reporter against the provided MockJudgeCenter and
+	 * measure the end-to-end throughput.
+	 * @param center The running MockJudgeCenter instance.
+	 * @param reporter The Reporter instance to run.
+	 * @return The Result of the run.
+	 * @throws IOException
+	 */
+	public static Result run(MockJudgeCenter center, Reporter reporter) throws IOException {
+		center.resetCounters();
+		long start = System.nanoTime();
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+		long elapsed = System.nanoTime() - start;
+
+		if (set == null) {
+			throw new IllegalStateException("Login to the mock Judge Center failed");
+		}
+		return new Result(set.size(), set.getErrors().size(), center.getRequests(), center.getErrors(), center.getBytesSent(), elapsed);
+	}
+
+	/**
+	 * Result is the outcome of a single harness run.
+	 */
+	@lombok.Value
+	public static class Result {
+		/** The number of investigations loaded. */
+		private final int investigations;
+		/** The number of investigations that failed to load. */
+		private final int failed;
+		/** The number of requests served. */
+		private final long requests;
+		/** The number of injected errors. */
+		private final long errors;
+		/** The number of response body bytes sent. */
+		private final long bytes;
+		/** The elapsed time in nanoseconds. */
+		private final long elapsedNanos;
+
+		/**
+		 * Get the number of investigations loaded per second.
+		 * @return The investigation throughput.
+		 */
+		public double getInvestigationsPerSecond() {
+			return investigations * 1e9 / elapsedNanos;
+		}
+
+		/**
+		 * Get the number of requests served per second.
+		 * @return The request throughput.
+		 */
+		public double getRequestsPerSecond() {
+			return requests * 1e9 / elapsedNanos;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return String.format("%d investigations (%d failed) in %.2fs (%.1f investigations/s), %d requests (%.1f requests/s), %d errors, %d bytes",
+					investigations, failed, elapsedNanos / 1e9, getInvestigationsPerSecond(), requests, getRequestsPerSecond(), errors, bytes);
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import java.util.*;
+import org.joda.time.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+/**
+ * ReportWriterTest renders small reports with the text and HTML report
+ * writers and checks the status grouping, the position of the summary, the
+ * statement line breaks, the HTML escaping and the removal of the spool
+ * files.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class ReportWriterTest {
+
+	/* The line separator written by the text report */
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	@Rule
+	public TemporaryFolder spool = new TemporaryFolder();
+
+	@Test
+	public void testGroupsByStatus() throws IOException {
+		String report = renderText(Arrays.asList(
+				investigation(1, "Open", null),
+				investigation(2, "Closed", null),
+				investigation(3, "Open", null),
+				investigation(4, null, null),
+				investigation(5, "Closed", null)));
+
+		assertEquals(1, count(report, "Status: Open"));
+		assertEquals(1, count(report, "Status: Closed"));
+		assertEquals(1, count(report, "Status: " + ReportSummary.NO_STATUS));
+
+		// The groups follow the summary in the order the statuses were first seen.
+		int summary = report.indexOf("Summary");
+		int open = report.indexOf("Status: Open");
+		int closed = report.indexOf("Status: Closed");
+		int none = report.indexOf("Status: " + ReportSummary.NO_STATUS);
+		assertTrue(summary >= 0 && summary < open);
+		assertTrue(open < closed && closed < none);
+
+		int[] positions = new int[6];
+		for (int id = 1; id <= 5; ++id) {
+			positions[id] = report.indexOf("Investigation " + id + NEWLINE);
+			assertTrue("Investigation " + id, positions[id] > summary);
+		}
+		assertTrue(open < positions[1] && positions[1] < positions[3] && positions[3] < closed);
+		assertTrue(closed < positions[2] && positions[2] < positions[5] && positions[5] < none);
+		assertTrue(none < positions[4]);
+
+		assertTrue(report.contains("Investigations:    5" + NEWLINE));
+		assertTrue(report.contains("  Open:            2" + NEWLINE));
+		assertEquals(0, spool.getRoot().list().length);
+	}
+
+	@Test
+	public void testTextStatementLines() throws IOException {
+		String report = renderText(Collections.singletonList(
+				investigation(1, "Open", "First line\r\nSecond line\nThird line\r")));
+
+		assertTrue(report.contains("    First line" + NEWLINE + "    Second line" + NEWLINE + "    Third line" + NEWLINE));
+		assertEquals(-1, report.replace(NEWLINE, "\n").indexOf('\r'));
+	}
+
+	@Test
+	public void testHtmlEscaping() throws IOException {
+		Investigation investigation = investigation(1, "<Open> & \"Pending\"", "<script>alert('x')</script>");
+		investigation.setSubject("O'Brien & <Sons>");
+
+		StringWriter out = new StringWriter();
+		HtmlReportWriter writer = new HtmlReportWriter(out, spool.getRoot());
+		writer.render("A <b>\"Judge\"</b>", Collections.singletonList(investigation));
+		writer.close();
+		String report = out.toString();
+
+		assertTrue(report.contains("<title>Investigations Report: A &lt;b&gt;&quot;Judge&quot;&lt;/b&gt;</title>"));
+		assertTrue(report.contains("<h2>Status: &lt;Open&gt; &amp; &quot;Pending&quot;</h2>"));
+		assertTrue(report.contains("O&#39;Brien &amp; &lt;Sons&gt;"));
+		assertTrue(report.contains("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;"));
+		assertFalse(report.contains("<script>"));
+		assertFalse(report.contains("<b>"));
+		assertTrue(report.indexOf("<div class=\"summary\">") < report.indexOf("<div class=\"group\">"));
+	}
+
+	@Test
+	public void testCloseRemovesSpoolFiles() throws IOException {
+		StringWriter out = new StringWriter();
+		TextReportWriter writer = new TextReportWriter(out, spool.getRoot());
+		writer.investigationsStarted("Judge", -1);
+		writer.investigationLoaded(investigation(1, "Open", null));
+		writer.investigationLoaded(investigation(2, "Closed", null));
+		assertEquals(2, spool.getRoot().list().length);
+		writer.close();
+		assertEquals(0, spool.getRoot().list().length);
+	}
+
+	private String renderText(List<Investigation> investigations) throws IOException {
+		StringWriter out = new StringWriter();
+		TextReportWriter writer = new TextReportWriter(out, spool.getRoot());
+		writer.render("Judge", investigations);
+		writer.close();
+		return out.toString();
+	}
+
+	private static Investigation investigation(long id, String status, String text) {
+		Investigation investigation = new Investigation();
+		investigation.setId(id);
+		investigation.setStatus(status);
+		investigation.setEnteredDate(new LocalDate(2015, 1, (int) id));
+		if (text != null) {
+			Statement statement = new Statement();
+			statement.setWitnessName("Witness");
+			statement.setStatement(text);
+			investigation.getStatements().add(statement);
+		}
+		return investigation;
+	}
+
+	private static int count(String text, String part) {
+		int count = 0;
+		for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+			++count;
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import org.junit.*;
+import com.gargoylesoftware.htmlunit.*;
+import com.gargoylesoftware.htmlunit.html.*;
+
+/**
+ * ReporterAllocationTest parses recorded investigation list and 'view' tab
+ * pages through the Reporter row and page parsing and fails when the bytes
+ * allocated per investigation exceed the budget checked in as
+ * allocation_budget.properties.  The fixture pages in fixtures/ were recorded
+ * from MockJudgeCenter.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class ReporterAllocationTest {
+
+	/* The recorded page resource path */
+	private static final String FIXTURES = "com/darkside/judge/fixtures/";
+	/* The page property resource identifiers */
+	private static final String RESOURCE_LOGIN_PROPERTIES = "com/darkside/judge/login_page.properties";
+	private static final String RESOURCE_CASES_PROPERTIES = "com/darkside/judge/investigations_page.properties";
+	/* The allocation budget resource identifier */
+	private static final String RESOURCE_BUDGET_PROPERTIES = "com/darkside/judge/allocation_budget.properties";
+	/* The number of recorded 'view' tab pages; they are the first rows of the list */
+	private static final int CASE_PAGES = 5;
+	/* The number of investigations parsed before and while measuring */
+	private static final int WARM_UP = 5000;
+	private static final int MEASURED = 10000;
+
+	private static WebClient client;
+	private static Reporter reporter;
+	private static InvestigationsPageProperties listProperties;
+	private static InvestigationPageProperties caseProperties;
+	private static List<HtmlTableRow> rows;
+	private static List<HtmlPage> casePages;
+
+	@BeforeClass
+	public static void loadFixtures() throws IOException {
+		listProperties = new InvestigationsPageProperties(RESOURCE_CASES_PROPERTIES);
+		caseProperties = new InvestigationPageProperties(RESOURCE_CASES_PROPERTIES);
+		reporter = new Reporter(new LoginPageProperties(RESOURCE_LOGIN_PROPERTIES), listProperties, caseProperties);
+
+		client = new WebClient(BrowserVersion.INTERNET_EXPLORER_11);
+		client.getOptions().setJavaScriptEnabled(false);
+		client.getOptions().setCssEnabled(false);
+		HtmlPage list = client.getPage(fixture("investigations_list.html"));
+		HtmlTable table = list.getHtmlElementById(listProperties.getTable());
+		rows = table.getRows();
+
+		casePages = new ArrayList<HtmlPage>();
+		for (int i = 1; i <= CASE_PAGES; ++i) {
+			casePages.add(client.<HtmlPage>getPage(fixture("investigation_view_" + i + ".html")));
+		}
+	}
+
+	@AfterClass
+	public static void closeClient() {
+		client.closeAllWindows();
+	}
+
+	@Test
+	public void testParseFixtures() {
+		for (int i = 0; i < CASE_PAGES; ++i) {
+			Investigation investigation = parse(i);
+
+			assertEquals(101000 - i, investigation.getId());
+			assertNotNull(investigation.getIncidentDate());
+			assertNotNull(investigation.getEnteredDate());
+			assertTrue(investigation.getSanctioningNo(), investigation.getSanctioningNo().matches("\\d{2}-\\d{2}-\\d+"));
+			assertTrue(investigation.getEnteredDciNo() > 0);
+			assertTrue(investigation.getSubjectDciNo() > 0);
+			assertFalse(investigation.getSubjectRole().isEmpty());
+			assertFalse(investigation.getWitnesses().isEmpty());
+			assertFalse(investigation.getStatements().isEmpty());
+
+			for (Statement statement : investigation.getStatements()) {
+				assertNotNull(statement.getWitness());
+				assertEquals(statement.getWitness().getDciNo(), statement.getWitnessDciNo());
+				assertEquals(statement.getWitnessName(), statement.getEnteredBy());
+				assertNotNull(statement.getEnteredDate());
+				String text = statement.getStatement();
+				assertEquals(text.trim(), text);
+				assertFalse(text.isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testAllocationBudget() throws IOException {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+		allocations.setThreadAllocatedMemoryEnabled(true);
+
+		Properties budget = new Properties();
+		budget.load(ReporterAllocationTest.class.getClassLoader().getResourceAsStream(RESOURCE_BUDGET_PROPERTIES));
+		long bytesPerInvestigation = Long.parseLong(budget.getProperty("allocation.budget.bytes_per_investigation"));
+
+		for (int i = 0; i < WARM_UP; ++i) {
+			parse(i % CASE_PAGES);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = allocations.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < MEASURED; ++i) {
+			parse(i % CASE_PAGES);
+		}
+		long allocated = (allocations.getThreadAllocatedBytes(thread) - before) / MEASURED;
+
+		log.info("Allocated " + allocated + " bytes per investigation (budget " + bytesPerInvestigation + ")");
+		assertTrue("Allocated " + allocated + " bytes per investigation; the budget is " + bytesPerInvestigation,
+				allocated <= bytesPerInvestigation);
+	}
+
+	/*
+	 * parse parses the investigation of the provided (zero based) list row
+	 * and its recorded 'view' tab page.
+	 */
+	private static Investigation parse(int i) {
+		Investigation investigation = reporter.loadInvestigationRow(rows.get(i + 1), listProperties);
+		reporter.loadInvestigationPage(investigation, casePages.get(i), listProperties, caseProperties);
+		return investigation;
+	}
+
+	private static java.net.URL fixture(String name) {
+		return ReporterAllocationTest.class.getClassLoader().getResource(FIXTURES + name);
+	}
+
+}
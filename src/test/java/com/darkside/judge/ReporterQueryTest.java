@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import java.util.*;
+import org.joda.time.*;
+import org.junit.*;
+
+/**
+ * ReporterQueryTest runs the Reporter with an entered date query against a
+ * MockJudgeCenter and checks that every matching investigation is loaded
+ * whether or not the list is sorted by entered date.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class ReporterQueryTest {
+
+	/* The number of investigations served; three list pages of PAGE_SIZE */
+	private static final int CASES = 60;
+	/* The list page size */
+	private static final int PAGE_SIZE = 25;
+
+	private MockJudgeCenter center;
+
+	@Before
+	public void startCenter() throws IOException {
+		center = new MockJudgeCenter(CASES);
+		center.setListPageSize(PAGE_SIZE);
+	}
+
+	@After
+	public void stopCenter() {
+		center.close();
+	}
+
+	@Test
+	public void testUnsortedListIsNotCutOff() throws IOException {
+		center.setSortedByEnteredDate(false);
+		assertQueryLoadsEveryMatch(1);
+	}
+
+	@Test
+	public void testUnsortedListIsNotCutOffUsingListSessions() throws IOException {
+		center.setSortedByEnteredDate(false);
+		assertQueryLoadsEveryMatch(3);
+	}
+
+	@Test
+	public void testSortedListLoadsEveryMatch() throws IOException {
+		assertQueryLoadsEveryMatch(1);
+	}
+
+	private void assertQueryLoadsEveryMatch(int listSessions) throws IOException {
+		center.start();
+		InvestigationQuery query = new InvestigationQuery();
+		query.setEnteredFrom(center.getEnteredDate(CASES * 2 / 3));
+		query.setEnteredTo(center.getEnteredDate(CASES / 3));
+		if (query.getEnteredTo().isBefore(query.getEnteredFrom())) {
+			LocalDate from = query.getEnteredTo();
+			query.setEnteredTo(query.getEnteredFrom());
+			query.setEnteredFrom(from);
+		}
+
+		Set<Long> expected = new TreeSet<Long>();
+		Set<Integer> pages = new TreeSet<Integer>();
+		for (int index = 0; index < CASES; ++index) {
+			if (query.isEnteredInRange(center.getEnteredDate(index))) {
+				expected.add(center.getInvestigationId(index));
+				pages.add(index / PAGE_SIZE);
+			}
+		}
+		assertTrue(expected.size() > 1 && expected.size() < CASES);
+		// The matches of an unsorted list are spread over every page.
+		assertTrue(pages.size() > 1);
+
+		Reporter reporter = center.createReporter();
+		reporter.setListSessions(listSessions);
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray(), query);
+
+		Set<Long> loaded = new TreeSet<Long>();
+		for (Investigation investigation : set) {
+			loaded.add(investigation.getId());
+		}
+		assertEquals(expected, loaded);
+		assertTrue(set.getErrors().isEmpty());
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import java.util.*;
+import org.junit.*;
+
+/**
+ * ReporterRetryTest runs the Reporter against a MockJudgeCenter that fails
+ * investigation 'view' postbacks and checks that the scrape completes with
+ * every other investigation loaded and the failed investigations reported.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class ReporterRetryTest {
+
+	/* The number of investigations served; three list pages of PAGE_SIZE */
+	private static final int CASES = 60;
+	/* The list page size; small so that the list spans pages without many investigations */
+	private static final int PAGE_SIZE = 25;
+
+	private MockJudgeCenter center;
+
+	@Before
+	public void startCenter() throws IOException {
+		center = new MockJudgeCenter(CASES);
+		center.setListPageSize(PAGE_SIZE);
+	}
+
+	@After
+	public void stopCenter() {
+		center.close();
+	}
+
+	@Test
+	public void testFailingInvestigationsAreReported() throws IOException {
+		assertFailingInvestigationsAreReported(1);
+	}
+
+	@Test
+	public void testFailingInvestigationsAreReportedUsingNextPageLinks() throws IOException {
+		// The bundled properties leave the page index postback unset.
+		center.setPageLinks(false);
+		assertFailingInvestigationsAreReported(1);
+	}
+
+	@Test
+	public void testFailingInvestigationsAreReportedUsingListSessions() throws IOException {
+		assertFailingInvestigationsAreReported(3);
+		// The first page is already shown, and retries reload the list, so it is never selected by its index.
+		assertEquals(0, center.getPageSelections(1));
+	}
+
+	private void assertFailingInvestigationsAreReported(int listSessions) throws IOException {
+		// The first and last rows of the first page, a row of the second page and the last row of the list.
+		Set<Long> failing = new TreeSet<Long>();
+		for (int index : new int[] { 0, PAGE_SIZE - 1, PAGE_SIZE + 10, CASES - 1 }) {
+			failing.add(center.getInvestigationId(index));
+			center.addFailingInvestigation(center.getInvestigationId(index));
+		}
+		center.start();
+
+		Reporter reporter = center.createReporter();
+		reporter.setMaxRetries(2);
+		reporter.setListSessions(listSessions);
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+
+		assertEquals(CASES - failing.size(), set.size());
+		Set<Long> loaded = loadedIds(set);
+		assertEquals(set.size(), loaded.size());
+		for (long id : failing) {
+			assertFalse(loaded.contains(id));
+		}
+
+		Set<Long> failed = new TreeSet<Long>();
+		for (InvestigationError error : set.getErrors()) {
+			failed.add(error.getId());
+			assertEquals("Attempts of " + error, 3, error.getAttempts());
+			assertNotNull(error.getCause());
+		}
+		assertEquals(failing, failed);
+	}
+
+	@Test
+	public void testMalformedViewTabsAreRetried() throws IOException {
+		// Malformed once on each of the three pages, then served intact.
+		long[] recovered = {
+			center.getInvestigationId(5), center.getInvestigationId(PAGE_SIZE + 5), center.getInvestigationId(CASES - 5)
+		};
+		center.addMalformedInvestigation(recovered[0], MockJudgeCenter.Malformation.ID_MISMATCH, 1);
+		center.addMalformedInvestigation(recovered[1], MockJudgeCenter.Malformation.MISSING_STATEMENT_LINE, 1);
+		center.addMalformedInvestigation(recovered[2], MockJudgeCenter.Malformation.MISSING_KEY_VALUE, 1);
+		// Always malformed, between rows that load.
+		long malformed = center.getInvestigationId(15);
+		center.addMalformedInvestigation(malformed, MockJudgeCenter.Malformation.MISSING_KEY_VALUE, Integer.MAX_VALUE);
+		center.start();
+
+		Reporter reporter = center.createReporter();
+		reporter.setMaxRetries(2);
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+
+		assertEquals(CASES - 1, set.size());
+		Set<Long> loaded = loadedIds(set);
+		assertEquals(set.size(), loaded.size());
+		assertFalse(loaded.contains(malformed));
+		assertTrue(loaded.contains(center.getInvestigationId(14)));
+		assertTrue(loaded.contains(center.getInvestigationId(16)));
+		for (Investigation investigation : set) {
+			for (long id : recovered) {
+				if (investigation.getId() == id) {
+					assertNotNull(investigation.getSanctioningNo());
+					assertFalse(investigation.getStatements().isEmpty());
+					assertNotNull(investigation.getStatements().get(0).getEnteredBy());
+				}
+			}
+		}
+
+		assertEquals(1, set.getErrors().size());
+		InvestigationError error = set.getErrors().get(0);
+		assertEquals(malformed, error.getId());
+		assertEquals(3, error.getAttempts());
+		assertTrue(error.getCause() instanceof IllegalStateException);
+	}
+
+	@Test
+	public void testFailedListPageIsLoadedByTheMainSession() throws IOException {
+		// The list session loading page 2 fails; the main session loads it before counting.
+		center.addFailingListPage(2, 1);
+		center.start();
+
+		CountingListener listener = new CountingListener();
+		Reporter reporter = center.createReporter();
+		reporter.setListSessions(3);
+		reporter.addInvestigationListener(listener);
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+
+		assertEquals(CASES, loadedIds(set).size());
+		assertTrue(set.getErrors().isEmpty());
+		assertEquals(CASES, listener.count);
+		assertEquals(CASES, listener.loaded);
+	}
+
+	@Test
+	public void testRowsOfFailedListPageAreRetriedOnce() throws IOException {
+		// Page 2 fails for its list session and when its investigations are loaded, not when the main session lists it.
+		center.addFailingListPage(2, 1, 3);
+		center.start();
+
+		CountingListener listener = new CountingListener();
+		Reporter reporter = center.createReporter();
+		reporter.setListSessions(3);
+		reporter.addInvestigationListener(listener);
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+
+		assertEquals(CASES, set.size());
+		assertEquals(CASES, loadedIds(set).size());
+		assertEquals(CASES, listener.count);
+		assertEquals(CASES, listener.loaded);
+	}
+
+	@Test
+	public void testUnloadableListPageIsRetried() throws IOException {
+		// Page 2 fails for its list session, the main session and its first load.
+		center.addFailingListPage(2, 1, 2, 3);
+		center.start();
+
+		CountingListener listener = new CountingListener();
+		Reporter reporter = center.createReporter();
+		reporter.setListSessions(3);
+		reporter.addInvestigationListener(listener);
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+
+		Set<Long> loaded = loadedIds(set);
+		assertEquals(set.size(), loaded.size());
+		assertEquals(CASES, loaded.size());
+		assertTrue(set.getErrors().isEmpty());
+		// The number of investigations is unknown while a page cannot be loaded.
+		assertEquals(-1, listener.count);
+		assertEquals(CASES, listener.loaded);
+	}
+
+	@Test
+	public void testRandomFailuresDoNotAbortTheScrape() throws IOException {
+		center.setErrorRate(0.5);
+		center.start();
+
+		Reporter reporter = center.createReporter();
+		InvestigationsSet set = reporter.loadInvestigations("1234567", "password".toCharArray());
+
+		assertTrue(center.getErrors() > 0);
+		Set<Long> loaded = loadedIds(set);
+		assertEquals(set.size(), loaded.size());
+		// Every investigation is either loaded or reported as failed.
+		Set<Long> failed = new HashSet<Long>();
+		for (InvestigationError error : set.getErrors()) {
+			assertFalse("Page error " + error, error.isPageError());
+			assertFalse(loaded.contains(error.getId()));
+			failed.add(error.getId());
+		}
+		assertEquals(CASES, loaded.size() + failed.size());
+	}
+
+	/*
+	 * CountingListener records the expected number of investigations and
+	 * counts those loaded.
+	 */
+	private static final class CountingListener implements InvestigationListener {
+
+		int count;
+		int loaded;
+
+		@Override
+		public void investigationsStarted(String name, int count) {
+			this.count = count;
+		}
+
+		@Override
+		public void investigationLoaded(Investigation investigation) {
+			++loaded;
+		}
+
+		@Override
+		public void investigationsFinished() {
+		}
+
+	}
+
+	private static Set<Long> loadedIds(InvestigationsSet set) {
+		Set<Long> ids = new HashSet<Long>();
+		for (Investigation investigation : set) {
+			ids.add(investigation.getId());
+		}
+		return ids;
+	}
+
+}
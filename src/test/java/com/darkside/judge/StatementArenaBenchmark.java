@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * StatementArenaBenchmark measures the heap occupied by, and the garbage
+ * collection time spent building, a large synthetic set of investigations
+ * with the statement text kept on the heap and kept compressed in a
+ * StatementTextArena, then the cost of reading every statement back.  For the
+ * cleanest figures run each mode in its own JVM with the same heap settings.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class StatementArenaBenchmark {
+
+	/* The synthetic statement vocabulary */
+	private static final String[] WORDS = ("the player opponent judge head floor called cast spell attacked blocked creature "
+			+ "tapped lands drew extra card hand library sideboard deck list registered marked sleeves shuffled "
+			+ "game loss warning match round table turn phase combat damage stack priority said asked told "
+			+ "saw noticed appeared after before during when then because did not was were had").split(" ");
+
+	/**
+	 * Run the statement arena benchmark.
+	 * @param args The number of investigations (default 50000), the number of
+	 * 		statements per investigation (default 3) and the mode, 'heap',
+	 * 		'arena' or 'both' (default both).
+	 */
+	public static void main(String[] args) {
+		int investigations = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		int statements = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		String mode = args.length > 2 ? args[2] : "both";
+
+		if (!"arena".equals(mode)) {
+			log.info("heap:  " + run(investigations, statements, null));
+		}
+		if (!"heap".equals(mode)) {
+			StatementTextArena arena = new StatementTextArena();
+			String result = run(investigations, statements, arena);
+			log.info("arena: " + result + String.format(", %d texts %.1fMB raw compressed to %.1fMB",
+					arena.getTextCount(), arena.getRawBytes() / 1048576.0, arena.getStoredBytes() / 1048576.0));
+		}
+	}
+
+	/*
+	 * run builds the investigations and reads every statement back, returning
+	 * a summary of the heap, off-heap and garbage collection figures.
+	 */
+	private static String run(int investigations, int statements, StatementTextArena arena) {
+		long heapBefore = usedHeapAfterGc();
+		long directBefore = directMemory();
+		long gcBefore = gcMillis();
+		long start = System.nanoTime();
+
+		Random random = new Random(42);
+		List<Investigation> list = new ArrayList<Investigation>(investigations);
+		for (int i = 0; i < investigations; ++i) {
+			Investigation investigation = new Investigation();
+			investigation.setId(100000 + i);
+			for (int s = 0; s < statements; ++s) {
+				Statement statement = new Statement();
+				statement.setWitnessName("Witness " + s);
+				statement.setStatement(text(random, 40 + random.nextInt(160)), arena);
+				investigation.getStatements().add(statement);
+			}
+			list.add(investigation);
+		}
+		long build = System.nanoTime() - start;
+		long gcBuild = gcMillis() - gcBefore;
+
+		long retained = usedHeapAfterGc() - heapBefore;
+		long direct = directMemory() - directBefore;
+
+		start = System.nanoTime();
+		long chars = 0;
+		for (Investigation investigation : list) {
+			for (Statement statement : investigation.getStatements()) {
+				chars += statement.getStatement().length();
+			}
+		}
+		long read = System.nanoTime() - start;
+
+		return String.format("%d statements (%d chars): retained heap %.1fMB, direct %.1fMB, build %dms (gc %dms), read %dms",
+				(long) investigations * statements, chars, retained / 1048576.0, direct / 1048576.0,
+				build / 1000000, gcBuild, read / 1000000);
+	}
+
+	private static String text(Random random, int words) {
+		StringBuilder builder = new StringBuilder(words * 7);
+		for (int i = 0; i < words; ++i) {
+			builder.append(WORDS[random.nextInt(WORDS.length)]).append(i % 12 == 11 ? ". " : " ");
+		}
+		return builder.toString();
+	}
+
+	private static long usedHeapAfterGc() {
+		for (int i = 0; i < 3; ++i) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static long directMemory() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if ("direct".equals(pool.getName())) {
+				return pool.getMemoryUsed();
+			}
+		}
+		return 0;
+	}
+
+	private static long gcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(0, gc.getCollectionTime());
+		}
+		return total;
+	}
+
+}
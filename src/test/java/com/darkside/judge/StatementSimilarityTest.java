@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.util.*;
+import org.junit.*;
+
+/**
+ * StatementSimilarityTest checks which witness statements StatementSimilarity
+ * pairs as near duplicates.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class StatementSimilarityTest {
+
+	private static final String STATEMENT = "During round three my opponent cast a creature and then drew "
+			+ "two cards from the top of the library while I was looking at my sideboard. I called a judge "
+			+ "when I noticed the hand size was wrong and my opponent said the extra card was drawn for the "
+			+ "turn even though the draw step had already passed.";
+	private static final String EDITED = "During round 3 my opponent cast a creature and then drew "
+			+ "two cards from the top of their library while I was looking at my sideboard. I called a judge "
+			+ "when I noticed the hand size was wrong and my opponent said the extra card was drawn for the "
+			+ "turn even though the draw step had already passed.";
+	private static final String OTHER = "The head judge asked me to describe the shuffling. The player "
+			+ "pile shuffled seven times, then mash shuffled, and the opponent cut the deck once before "
+			+ "presenting it. Nothing seemed unusual to me at the time of the match.";
+
+	private StatementSimilarity similarity;
+
+	@Before
+	public void createSimilarity() {
+		similarity = new StatementSimilarity(0.8);
+	}
+
+	@After
+	public void closeSimilarity() {
+		similarity.close();
+	}
+
+	@Test
+	public void testNearDuplicatesArePaired() {
+		List<SimilarStatements> pairs = similarity.addAll(Arrays.asList(
+				investigation(100001, "Alice", STATEMENT),
+				investigation(100002, "Bob", OTHER),
+				investigation(100003, "Carol", EDITED)));
+
+		assertEquals(1, pairs.size());
+		SimilarStatements pair = pairs.get(0);
+		assertEquals(100001, pair.getFirstInvestigationId());
+		assertEquals("Alice", pair.getFirstWitnessName());
+		assertEquals(100003, pair.getSecondInvestigationId());
+		assertEquals("Carol", pair.getSecondWitnessName());
+		assertTrue(pair.getSimilarity() >= 0.8 && pair.getSimilarity() < 1.0);
+		assertEquals(3, similarity.getStatementCount());
+	}
+
+	@Test
+	public void testSameWitnessInOneInvestigationIsNotPaired() {
+		Investigation investigation = investigation(100001, "Alice", STATEMENT);
+		investigation.getStatements().add(statement("alice", EDITED));
+		investigation.getStatements().add(statement("Alice", STATEMENT));
+
+		assertTrue(similarity.addAll(Collections.singletonList(investigation)).isEmpty());
+
+		// The same witness in another investigation is paired.
+		List<SimilarStatements> pairs = similarity.addAll(Collections.singletonList(
+				investigation(100002, "Alice", STATEMENT)));
+		assertEquals(1, pairs.size());
+		assertEquals(100001, pairs.get(0).getFirstInvestigationId());
+		assertEquals(100002, pairs.get(0).getSecondInvestigationId());
+		assertEquals(1.0, pairs.get(0).getSimilarity(), 0.0);
+	}
+
+	@Test
+	public void testDuplicatesArePairedWithTheFirstCopy() {
+		List<Investigation> investigations = new ArrayList<Investigation>();
+		for (int i = 0; i < 200; ++i) {
+			investigations.add(investigation(100000 + i, "Witness " + i, STATEMENT));
+		}
+		List<SimilarStatements> pairs = similarity.addAll(investigations);
+
+		assertEquals(199, pairs.size());
+		for (int i = 0; i < pairs.size(); ++i) {
+			assertEquals(100000, pairs.get(i).getFirstInvestigationId());
+			assertEquals(100001 + i, pairs.get(i).getSecondInvestigationId());
+		}
+		assertEquals(200, similarity.getStatementCount());
+		assertEquals(199, similarity.getDuplicateCount());
+
+		// A near duplicate of the boilerplate is compared once, not with every copy.
+		pairs = similarity.addAll(Collections.singletonList(investigation(100200, "Carol", EDITED)));
+		assertEquals(1, pairs.size());
+		assertEquals(100000, pairs.get(0).getFirstInvestigationId());
+	}
+
+	private static Investigation investigation(long id, String witnessName, String text) {
+		Investigation investigation = new Investigation();
+		investigation.setId(id);
+		investigation.getStatements().add(statement(witnessName, text));
+		return investigation;
+	}
+
+	private static Statement statement(String witnessName, String text) {
+		Statement statement = new Statement();
+		statement.setWitnessName(witnessName);
+		statement.setStatement(text);
+		return statement;
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import static org.junit.Assert.*;
+import java.util.*;
+import org.junit.*;
+
+/**
+ * StatementTextArenaTest checks that statement text is stored and loaded
+ * intact by the StatementTextArena and that its cache keeps the most recently
+ * loaded texts.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+public class StatementTextArenaTest {
+
+	@Test
+	public void testRoundTrip() {
+		StatementTextArena arena = new StatementTextArena(4096, 0);
+		List<String> texts = new ArrayList<String>();
+		List<Long> handles = new ArrayList<Long>();
+		Random random = new Random(42);
+		for (int i = 0; i < 200; ++i) {
+			String text = text(random, 20 + random.nextInt(400));
+			texts.add(text);
+			handles.add(arena.store(text));
+		}
+		texts.add("");
+		handles.add(arena.store(""));
+
+		for (int i = texts.size() - 1; i >= 0; --i) {
+			assertEquals(texts.get(i), arena.load(handles.get(i)));
+		}
+		assertEquals(texts.size(), arena.getTextCount());
+		assertTrue(arena.getAllocatedBytes() > 4096);
+		assertTrue(arena.getStoredBytes() <= arena.getAllocatedBytes());
+	}
+
+	@Test
+	public void testTextLargerThanChunk() {
+		StatementTextArena arena = new StatementTextArena(64, 0);
+		long small = arena.store("Before the large statement.");
+		// Random text barely compresses so it exceeds the chunk.
+		String large = text(new Random(7), 5000);
+		long handle = arena.store(large);
+		long after = arena.store("After the large statement.");
+
+		assertEquals(large, arena.load(handle));
+		assertEquals("Before the large statement.", arena.load(small));
+		assertEquals("After the large statement.", arena.load(after));
+		assertEquals(3, arena.getTextCount());
+		assertTrue(arena.getAllocatedBytes() > 64 * 2);
+	}
+
+	@Test
+	public void testUtf8Text() {
+		StatementTextArena arena = new StatementTextArena(256, 0);
+		String text = "Le joueur a pioch\u00e9 une carte \u2014 \u00ab rien \u00bb, "
+				+ "\u65e5\u672c\u8a9e\u306e\u9648\u8ff0 \ud83c\udccf \ud83c\udca1 "
+				+ "\u0414\u043e\u0431\u0440\u044b\u0439 \u0434\u0435\u043d\u044c";
+		long handle = arena.store(text);
+		assertEquals(text, arena.load(handle));
+		assertEquals(text.getBytes(java.nio.charset.Charset.forName("UTF-8")).length, arena.getRawBytes());
+	}
+
+	@Test
+	public void testCache() {
+		StatementTextArena arena = new StatementTextArena(4096, 2);
+		long a = arena.store("Statement A");
+		long b = arena.store("Statement B");
+		long c = arena.store("Statement C");
+
+		String loadedA = arena.load(a);
+		String loadedB = arena.load(b);
+		assertSame(loadedA, arena.load(a));
+		// C evicts the least recently loaded text, which is B.
+		arena.load(c);
+		assertSame(loadedA, arena.load(a));
+		String reloadedB = arena.load(b);
+		assertEquals(loadedB, reloadedB);
+		assertNotSame(loadedB, reloadedB);
+
+		StatementTextArena uncached = new StatementTextArena(4096, 0);
+		long handle = uncached.store("Statement A");
+		String loaded = uncached.load(handle);
+		assertEquals(loaded, uncached.load(handle));
+		assertNotSame(loaded, uncached.load(handle));
+	}
+
+	@Test
+	public void testStatementKeptInArena() {
+		StatementTextArena arena = new StatementTextArena(4096, 0);
+		Statement statement = new Statement();
+		statement.setWitnessName("Alice");
+		statement.setStatement("My opponent drew an extra card.", arena);
+		assertEquals("My opponent drew an extra card.", statement.getStatement());
+		// toString does not decompress the text.
+		assertFalse(statement.toString().contains("extra card"));
+
+		// Equal text is equal whether stored separately, in another arena or on the heap.
+		Statement copy = new Statement();
+		copy.setWitnessName("Alice");
+		copy.setStatement("My opponent drew an extra card.", arena);
+		assertEquals(statement, copy);
+		assertEquals(statement.hashCode(), copy.hashCode());
+		copy.setStatement("My opponent drew an extra card.", new StatementTextArena(4096, 0));
+		assertEquals(statement, copy);
+		copy.setStatement("My opponent drew an extra card.");
+		assertEquals(statement, copy);
+		assertEquals(copy, statement);
+		assertEquals(statement.hashCode(), copy.hashCode());
+
+		copy.setStatement("My opponent drew two extra cards.", arena);
+		assertFalse(statement.equals(copy));
+		copy.setStatement("My opponent drew an extra card.");
+		copy.setEnteredBy("Bob");
+		assertFalse(statement.equals(copy));
+	}
+
+	@Test
+	public void testLinkedStatementsAreCompared() {
+		// A witness and statement refer to each other; comparing them must not recurse.
+		Statement[] statements = new Statement[2];
+		Witness[] witnesses = new Witness[2];
+		for (int i = 0; i < 2; ++i) {
+			witnesses[i] = new Witness();
+			witnesses[i].setName("Alice");
+			statements[i] = new Statement();
+			statements[i].setWitnessName("Alice");
+			statements[i].setStatement("My opponent drew an extra card.");
+			statements[i].setWitness(witnesses[i]);
+			witnesses[i].setStatement(statements[i]);
+		}
+		assertEquals(statements[0], statements[1]);
+		assertEquals(witnesses[0], witnesses[1]);
+		assertEquals(witnesses[0].hashCode(), witnesses[1].hashCode());
+	}
+
+	private static String text(Random random, int length) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; ++i) {
+			builder.append((char) (' ' + random.nextInt(95)));
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 DarkMatter Software - Nicola DiPasquale
+ */
+package com.darkside.judge;
+
+import java.io.*;
+
+/**
+ * TransportBenchmark compares the throughput of the Reporter against a local
+ * MockJudgeCenter using the default HtmlUnit transport and the
+ * PooledWebConnection transport.  Each transport is run alternately after a
+ * warm up run and the requests per second and bytes transferred are logged.
+ * @author DarkSide Software - Nicola DiPasquale
+ * @version 1.0
+ * @since 1.0
+ */
+@lombok.extern.slf4j.Slf4j
+public class TransportBenchmark {
+
+	/**
+	 * Run the transport benchmark.
+	 * @param args The number of investigations (default 500), the response
+	 * 		latency in milliseconds (default 0) and the number of rounds
+	 * 		(default 3).
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		int cases = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int latency = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+		TransportProperties transport = new TransportProperties(MockJudgeCenterHarness.RESOURCE_TRANSPORT_PROPERTIES);
+		MockJudgeCenter center = new MockJudgeCenter(cases);
+		center.setLatencyMillis(latency);
+		center.start();
+		try {
+			// Warm up both transports before measuring.
+			MockJudgeCenterHarness.run(center, center.createReporter());
+			MockJudgeCenterHarness.run(center, createPooledReporter(center, transport));
+
+			for (int round = 1; round <= rounds; ++round) {
+				MockJudgeCenterHarness.Result standard = MockJudgeCenterHarness.run(center, center.createReporter());
+				log.info("Round " + round + " default: " + standard);
+
+				Reporter reporter = createPooledReporter(center, transport);
+				MockJudgeCenterHarness.Result pooled = MockJudgeCenterHarness.run(center, reporter);
+				log.info("Round " + round + " pooled:  " + pooled);
+				log.info("Round " + round + " pooled transport: " + reporter.getTransportStatistics());
+			}
+		} finally {
+			center.close();
+		}
+	}
+
+	/*
+	 * createPooledReporter creates a Reporter for the mock using the pooled transport.
+	 */
+	private static Reporter createPooledReporter(MockJudgeCenter center, TransportProperties transport) throws IOException {
+		return center.createReporter(transport);
+	}
+
+}